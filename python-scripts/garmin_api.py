@@ -1,12 +1,135 @@
+import gzip
+import logging
+import os
+import threading
+import time
+from collections import OrderedDict
+
 from flask import Flask, request, jsonify
-from garminconnect import Garmin
+from garminconnect import Garmin, GarminConnectTooManyRequestsError
+from werkzeug.serving import WSGIRequestHandler
 
 app = Flask(__name__)
+logger = logging.getLogger(__name__)
+
+# Callers that send this header get their own Garmin session; callers that don't share the
+# single legacy client below.
+SESSION_HEADER = 'X-Garmin-Session'
 
-# This is a simple, in-memory way to store the API client.
-# In a production app, you might use a more robust session management solution.
+# Legacy single-user client, used only by requests without a session header.
 api_client = None
 
+
+class SessionRegistry:
+    """Thread-safe map of session handle -> logged-in Garmin client.
+
+    Sessions idle for longer than idle_timeout seconds are dropped, and at most max_sessions
+    are kept: registering one more evicts the least recently used session.
+    """
+
+    def __init__(self, idle_timeout, max_sessions, clock=time.monotonic):
+        self.idle_timeout = idle_timeout
+        self.max_sessions = max_sessions
+        self._clock = clock
+        self._lock = threading.Lock()
+        self._sessions = OrderedDict()  # handle -> (client, last_used), least recently used first
+
+    def put(self, handle, client):
+        with self._lock:
+            self._evict_idle()
+            self._sessions.pop(handle, None)
+            while len(self._sessions) >= self.max_sessions:
+                evicted, _ = self._sessions.popitem(last=False)
+                logger.warning("Session cap of %d reached, evicting session %s", self.max_sessions, evicted)
+            self._sessions[handle] = (client, self._clock())
+
+    def get(self, handle):
+        with self._lock:
+            self._evict_idle()
+            entry = self._sessions.get(handle)
+            if entry is None:
+                return None
+            self._sessions[handle] = (entry[0], self._clock())
+            self._sessions.move_to_end(handle)
+            return entry[0]
+
+    def remove(self, handle):
+        with self._lock:
+            entry = self._sessions.pop(handle, None)
+            return entry[0] if entry else None
+
+    def __len__(self):
+        with self._lock:
+            return len(self._sessions)
+
+    def _evict_idle(self):
+        cutoff = self._clock() - self.idle_timeout
+        while self._sessions:
+            handle, (_, last_used) = next(iter(self._sessions.items()))
+            if last_used >= cutoff:
+                break
+            del self._sessions[handle]
+            logger.info("Evicted idle session %s", handle)
+
+
+sessions = SessionRegistry(
+    idle_timeout=int(os.getenv('GARMIN_SESSION_IDLE_TIMEOUT_SECONDS', '1800')),
+    max_sessions=int(os.getenv('GARMIN_MAX_SESSIONS', '100')),
+)
+
+
+# Responses at least this large are gzip-compressed for clients that advertise support for it.
+# Set GARMIN_COMPRESSION_ENABLED=false to always send plain JSON.
+COMPRESSION_ENABLED = os.getenv('GARMIN_COMPRESSION_ENABLED', 'true').lower() == 'true'
+COMPRESSION_MIN_BYTES = int(os.getenv('GARMIN_COMPRESSION_MIN_BYTES', '1024'))
+COMPRESSION_LEVEL = int(os.getenv('GARMIN_COMPRESSION_LEVEL', '6'))
+
+
+def accepts_gzip(accept_encoding):
+    """True if an Accept-Encoding header value allows gzip (and does not give it q=0)."""
+    for part in (accept_encoding or '').split(','):
+        coding, _, params = part.strip().partition(';')
+        if coding.strip().lower() not in ('gzip', 'x-gzip', '*'):
+            continue
+        quality = params.strip().lower()
+        if quality.startswith('q='):
+            try:
+                return float(quality[2:]) > 0
+            except ValueError:
+                return False
+        return True
+    return False
+
+
+@app.after_request
+def compress_response(response):
+    response.vary.add('Accept-Encoding')
+    if (not COMPRESSION_ENABLED
+            or response.direct_passthrough
+            or 'Content-Encoding' in response.headers
+            or response.mimetype != 'application/json'
+            or not accepts_gzip(request.headers.get('Accept-Encoding'))):
+        return response
+    body = response.get_data()
+    if len(body) < COMPRESSION_MIN_BYTES:
+        return response
+    response.set_data(gzip.compress(body, compresslevel=COMPRESSION_LEVEL))
+    response.headers['Content-Encoding'] = 'gzip'
+    return response
+
+
+def current_client():
+    handle = request.headers.get(SESSION_HEADER)
+    if handle:
+        return sessions.get(handle)
+    return api_client
+
+
+def too_many_requests(error):
+    """Garmin throttled us; a 429 tells the Java side to slow down rather than trip its breaker."""
+    return jsonify({'status': 'error', 'message': str(error)}), 429
+
+
 @app.route('/garmin/login', methods=['POST'])
 def login():
     global api_client
@@ -16,31 +139,49 @@ def login():
 
     username = data['username']
     password = data['password']
+    handle = request.headers.get(SESSION_HEADER)
 
     try:
         # Initialize the Garmin client
-        api_client = Garmin(username, password, user_agent="com.garmin.android.apps.connectmobile")
+        client = Garmin(username, password, user_agent="com.garmin.android.apps.connectmobile")
         # Attempt to log in
-        api_client.login()
+        client.login()
 
+        if handle:
+            sessions.put(handle, client)
+        else:
+            api_client = client
         return jsonify({'status': 'success', 'message': 'Garmin login successful'})
 
+    except GarminConnectTooManyRequestsError as e:
+        # Throttled, not bad credentials: keep any existing session and let the caller back off.
+        return too_many_requests(e)
     except Exception as e:
-        api_client = None
+        if handle:
+            sessions.remove(handle)
+        else:
+            api_client = None
         return jsonify({'status': 'error', 'message': str(e)}), 401
 
 @app.route('/garmin/status', methods=['GET'])
 def status():
-    if api_client and api_client.username:
-        return jsonify({'status': 'logged_in', 'username': api_client.username})
+    client = current_client()
+    if client and client.username:
+        return jsonify({'status': 'logged_in', 'username': client.username})
     else:
         return jsonify({'status': 'logged_out'})
 
 @app.route('/garmin/logout', methods=['POST'])
 def logout():
     global api_client
-    if api_client:
-        api_client.logout()
+    handle = request.headers.get(SESSION_HEADER)
+    client = sessions.remove(handle) if handle else api_client
+    if client:
+        try:
+            client.logout()
+        except GarminConnectTooManyRequestsError as e:
+            return too_many_requests(e)
+    if not handle:
         api_client = None
     return jsonify({'status': 'success', 'message': 'Garmin logout successful'})
 
@@ -55,28 +196,34 @@ def hello():
 
 @app.route('/garmin/activities', methods=['GET'])
 def get_activities():
-    if not api_client or not api_client.username:
+    client = current_client()
+    if not client or not client.username:
         return jsonify({'status': 'error', 'message': 'Not logged in'}), 401
 
     try:
         start = request.args.get('start', 0, type=int)
         limit = request.args.get('limit', 10, type=int)
 
-        activities = api_client.get_activities(start, limit)
+        activities = client.get_activities(start, limit)
 
         return jsonify(activities)
 
+    except GarminConnectTooManyRequestsError as e:
+        return too_many_requests(e)
     except Exception as e:
         return jsonify({'status': 'error', 'message': str(e)}), 500
 
 @app.route('/garmin/activity_detail/<int:activity_id>', methods=['GET'])
 def get_activity_detail(activity_id):
-    if not api_client or not api_client.username:
+    client = current_client()
+    if not client or not client.username:
         return jsonify({'status': 'error', 'message': 'Not logged in'}), 401
 
     try:
-        activity_details = api_client.get_activity_details(activity_id)
+        activity_details = client.get_activity_details(activity_id)
         return jsonify(activity_details)
+    except GarminConnectTooManyRequestsError as e:
+        return too_many_requests(e)
     except Exception as e:
         return jsonify({'status': 'error', 'message': str(e)}), 500
 
@@ -84,4 +231,6 @@ def get_activity_detail(activity_id):
 
 
 if __name__ == '__main__':
-    app.run(host='0.0.0.0', port=5001)
+    # HTTP/1.1 lets the Java client keep its pooled connections alive between calls.
+    WSGIRequestHandler.protocol_version = "HTTP/1.1"
+    app.run(host='0.0.0.0', port=5001, threaded=True)
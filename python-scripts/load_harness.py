@@ -0,0 +1,183 @@
+"""Load harness for the Garmin endpoints, meant to run against synthetic_garmin_api.py.
+
+Drives concurrent workers at either the Java application (end to end, through JWT auth and
+GarminIntegrationService) or the bridge directly, then reports throughput and latency
+percentiles per endpoint. Uses only the standard library so it runs anywhere.
+
+    # end to end through the Java app, with the synthetic bridge behind it
+    python3 load_harness.py --target java --base-url http://localhost:8080 \\
+        --username alice --password secret --workers 32 --duration 60
+
+    # the bridge alone
+    python3 load_harness.py --target bridge --base-url http://localhost:5001 --workers 32
+"""
+import argparse
+import gzip
+import json
+import random
+import threading
+import time
+import urllib.error
+import urllib.request
+import uuid
+from collections import defaultdict
+from concurrent.futures import ThreadPoolExecutor
+
+SESSION_HEADER = 'X-Garmin-Session'
+
+
+class Client:
+    """Minimal JSON-over-HTTP client that understands gzip responses."""
+
+    def __init__(self, base_url, headers=None, timeout=30.0):
+        self.base_url = base_url.rstrip('/')
+        self.headers = {'Accept': 'application/json', 'Accept-Encoding': 'gzip', **(headers or {})}
+        self.timeout = timeout
+
+    def request(self, method, path, body=None):
+        data = json.dumps(body).encode() if body is not None else None
+        req = urllib.request.Request(self.base_url + path, data=data, method=method, headers=dict(self.headers))
+        if data is not None:
+            req.add_header('Content-Type', 'application/json')
+        try:
+            with urllib.request.urlopen(req, timeout=self.timeout) as response:
+                return response.status, self._read(response)
+        except urllib.error.HTTPError as e:
+            return e.code, self._read(e)
+
+    @staticmethod
+    def _read(response):
+        payload = response.read()
+        if response.headers.get('Content-Encoding') == 'gzip':
+            payload = gzip.decompress(payload)
+        return payload
+
+
+class Target:
+    """Where the load goes, and the paths of its activity endpoints."""
+
+    def __init__(self, client, activities_path, detail_path):
+        self.client = client
+        self.activities_path = activities_path
+        self.detail_path = detail_path
+
+    @staticmethod
+    def java(args):
+        client = Client(args.base_url, timeout=args.timeout)
+        status, body = client.request('POST', '/api/auth/login', {'username': args.username, 'password': args.password})
+        if status != 200:
+            raise SystemExit(f'Application login failed with {status}: {body[:200]!r}')
+        client.headers['Authorization'] = 'Bearer ' + json.loads(body)['accessToken']
+        status, body = client.request('POST', '/api/auth/garmin/login',
+                                      {'username': args.garmin_username, 'password': args.garmin_password})
+        if status != 200:
+            raise SystemExit(f'Garmin login failed with {status}: {body[:200]!r}')
+        # The Java app only exposes the activity list; details go through the sync path
+        return Target(client, '/api/garmin/activities', None)
+
+    @staticmethod
+    def bridge(args):
+        client = Client(args.base_url, headers={SESSION_HEADER: str(uuid.uuid4())}, timeout=args.timeout)
+        status, body = client.request('POST', '/garmin/login',
+                                      {'username': args.garmin_username, 'password': args.garmin_password})
+        if status != 200:
+            raise SystemExit(f'Garmin login failed with {status}: {body[:200]!r}')
+        return Target(client, '/garmin/activities', '/garmin/activity_detail/{}')
+
+
+class Stats:
+
+    def __init__(self):
+        self._lock = threading.Lock()
+        self.latencies = defaultdict(list)
+        self.statuses = defaultdict(lambda: defaultdict(int))
+        self.bytes = defaultdict(int)
+
+    def record(self, endpoint, status, elapsed, size):
+        with self._lock:
+            self.latencies[endpoint].append(elapsed)
+            self.statuses[endpoint][status] += 1
+            self.bytes[endpoint] += size
+
+    def report(self, wall_seconds):
+        lines = [f'{"endpoint":<12} {"calls":>7} {"req/s":>8} {"p50 ms":>8} {"p95 ms":>8} {"p99 ms":>8} '
+                 f'{"max ms":>8} {"MB":>7}  statuses']
+        for endpoint in sorted(self.latencies):
+            samples = sorted(self.latencies[endpoint])
+            statuses = ', '.join(f'{code}={count}' for code, count in sorted(self.statuses[endpoint].items()))
+            lines.append(f'{endpoint:<12} {len(samples):>7} {len(samples) / wall_seconds:>8.1f} '
+                         f'{percentile(samples, 50):>8.1f} {percentile(samples, 95):>8.1f} '
+                         f'{percentile(samples, 99):>8.1f} {samples[-1] * 1000:>8.1f} '
+                         f'{self.bytes[endpoint] / 1_048_576:>7.2f}  {statuses}')
+        return '\n'.join(lines)
+
+
+def percentile(sorted_samples, pct):
+    if not sorted_samples:
+        return 0.0
+    index = min(len(sorted_samples) - 1, int(round(pct / 100.0 * (len(sorted_samples) - 1))))
+    return sorted_samples[index] * 1000
+
+
+def timed(stats, endpoint, call):
+    started = time.perf_counter()
+    try:
+        status, body = call()
+    except OSError:
+        status, body = 'io-error', b''
+    stats.record(endpoint, status, time.perf_counter() - started, len(body))
+    return status, body
+
+
+def worker(target, args, stats, deadline, seed):
+    """Pages through the account like a sync would, fetching a share of details per page."""
+    rng = random.Random(seed)
+    start = rng.randrange(0, args.max_start + 1, args.page_size) if args.max_start else 0
+    while time.monotonic() < deadline:
+        path = f'{target.activities_path}?start={start}&limit={args.page_size}'
+        status, body = timed(stats, 'activities', lambda: target.client.request('GET', path))
+        activities = json.loads(body) if status == 200 else []
+        if target.detail_path:
+            for activity in activities:
+                if time.monotonic() >= deadline:
+                    return
+                if rng.random() < args.detail_ratio:
+                    detail = target.detail_path.format(activity['activityId'])
+                    timed(stats, 'detail', lambda: target.client.request('GET', detail))
+        start = 0 if len(activities) < args.page_size or (args.max_start and start >= args.max_start) else start + args.page_size
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument('--target', choices=('java', 'bridge'), default='java')
+    parser.add_argument('--base-url', default='http://localhost:8080')
+    parser.add_argument('--username', help='application user (java target)')
+    parser.add_argument('--password', help='application password (java target)')
+    parser.add_argument('--garmin-username', default='synthetic@example.com')
+    parser.add_argument('--garmin-password', default='synthetic')
+    parser.add_argument('--workers', type=int, default=16)
+    parser.add_argument('--duration', type=float, default=30.0, help='seconds to run')
+    parser.add_argument('--page-size', type=int, default=50)
+    parser.add_argument('--max-start', type=int, default=0, help='spread workers over offsets up to this')
+    parser.add_argument('--detail-ratio', type=float, default=0.2, help='share of listed activities whose detail is fetched')
+    parser.add_argument('--timeout', type=float, default=30.0)
+    args = parser.parse_args()
+
+    if args.target == 'java' and not (args.username and args.password):
+        parser.error('--username and --password are required for the java target')
+    target = Target.java(args) if args.target == 'java' else Target.bridge(args)
+
+    stats = Stats()
+    started = time.monotonic()
+    deadline = started + args.duration
+    with ThreadPoolExecutor(max_workers=args.workers) as pool:
+        for future in [pool.submit(worker, target, args, stats, deadline, seed) for seed in range(args.workers)]:
+            future.result()
+    wall = time.monotonic() - started
+
+    print(f'{args.target} @ {args.base_url}: {args.workers} workers for {wall:.1f}s, page size {args.page_size}')
+    print(stats.report(wall))
+
+
+if __name__ == '__main__':
+    main()
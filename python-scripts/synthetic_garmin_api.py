@@ -0,0 +1,259 @@
+"""Synthetic stand-in for garmin_api.py, for load testing without touching real Garmin.
+
+Serves the same endpoints and payload shapes as the real bridge, but every activity and activity
+detail is generated deterministically from SYNTHETIC_SEED, so two runs with the same settings
+return the same data. Latency, error rates and page sizes are tunable through environment
+variables at start-up, or at runtime through GET/POST /synthetic/config.
+
+    SYNTHETIC_ACTIVITY_COUNT        activities per account (default 1000)
+    SYNTHETIC_SEED                  seed for generated data (default 42)
+    SYNTHETIC_LATENCY_MS            mean added latency per call (default 200)
+    SYNTHETIC_LATENCY_JITTER_MS     +/- uniform jitter on that latency (default 50)
+    SYNTHETIC_DETAIL_LATENCY_MS     mean latency of activity_detail calls (default SYNTHETIC_LATENCY_MS)
+    SYNTHETIC_ERROR_RATE            fraction of data calls that fail with 500 (default 0.0)
+    SYNTHETIC_THROTTLE_RATE         fraction of data calls rejected with 429 (default 0.0)
+    SYNTHETIC_MAX_PAGE_SIZE         largest page /garmin/activities will return (default 100)
+    SYNTHETIC_DETAIL_SAMPLES        metric samples per activity detail (default 500)
+"""
+import os
+import random
+import threading
+import time
+from datetime import datetime, timedelta
+
+from flask import Flask, request, jsonify
+from werkzeug.serving import WSGIRequestHandler
+
+from garmin_api import SESSION_HEADER, compress_response
+
+app = Flask(__name__)
+app.after_request(compress_response)
+
+FIRST_ACTIVITY_ID = 10_000_000_000
+NEWEST_START_TIME = datetime(2025, 9, 1, 7, 0, 0)
+
+ACTIVITY_TYPES = [
+    # typeKey, name, mean speed (m/s), mean heart rate, has power
+    ('running', 'Run', 3.2, 152, False),
+    ('cycling', 'Ride', 8.5, 138, True),
+    ('trail_running', 'Trail Run', 2.6, 158, False),
+    ('lap_swimming', 'Pool Swim', 0.9, 130, False),
+    ('walking', 'Walk', 1.4, 105, False),
+    ('virtual_ride', 'Virtual Ride', 9.0, 145, True),
+]
+
+
+def _env_float(name, default):
+    return float(os.getenv(name, str(default)))
+
+
+def _env_int(name, default):
+    return int(os.getenv(name, str(default)))
+
+
+class SyntheticConfig:
+    """Mutable knobs, shared by all request threads."""
+
+    FIELDS = ('activity_count', 'seed', 'latency_ms', 'latency_jitter_ms', 'detail_latency_ms',
+              'error_rate', 'throttle_rate', 'max_page_size', 'detail_samples')
+
+    def __init__(self):
+        self._lock = threading.Lock()
+        self.activity_count = _env_int('SYNTHETIC_ACTIVITY_COUNT', 1000)
+        self.seed = _env_int('SYNTHETIC_SEED', 42)
+        self.latency_ms = _env_float('SYNTHETIC_LATENCY_MS', 200)
+        self.latency_jitter_ms = _env_float('SYNTHETIC_LATENCY_JITTER_MS', 50)
+        self.detail_latency_ms = _env_float('SYNTHETIC_DETAIL_LATENCY_MS', self.latency_ms)
+        self.error_rate = _env_float('SYNTHETIC_ERROR_RATE', 0.0)
+        self.throttle_rate = _env_float('SYNTHETIC_THROTTLE_RATE', 0.0)
+        self.max_page_size = _env_int('SYNTHETIC_MAX_PAGE_SIZE', 100)
+        self.detail_samples = _env_int('SYNTHETIC_DETAIL_SAMPLES', 500)
+
+    def as_dict(self):
+        with self._lock:
+            return {field: getattr(self, field) for field in self.FIELDS}
+
+    def update(self, values):
+        with self._lock:
+            for field, value in values.items():
+                if field not in self.FIELDS:
+                    raise ValueError(f'Unknown setting {field}')
+                setattr(self, field, type(getattr(self, field))(value))
+
+
+config = SyntheticConfig()
+logged_in = {}  # session handle (or None for the legacy client) -> username
+logged_in_lock = threading.Lock()
+
+
+def activity_id_at(index):
+    """Activities are listed newest first; index 0 has the highest id."""
+    return FIRST_ACTIVITY_ID + config.activity_count - index
+
+
+def generate_activity(index, seed):
+    rng = random.Random(seed * 1_000_003 + index)
+    type_index = rng.randrange(len(ACTIVITY_TYPES))
+    type_key, name, mean_speed, mean_hr, has_power = ACTIVITY_TYPES[type_index]
+    start = NEWEST_START_TIME - timedelta(hours=20 * index, minutes=rng.randint(0, 180))
+    duration = round(rng.uniform(1200, 7200), 1)
+    average_speed = round(mean_speed * rng.uniform(0.85, 1.15), 3)
+    average_hr = round(mean_hr * rng.uniform(0.9, 1.1))
+    activity = {
+        'activityId': activity_id_at(index),
+        'activityName': f'{name} {index + 1}',
+        'activityType': {'typeKey': type_key, 'typeId': type_index + 1},
+        'startTimeLocal': start.strftime('%Y-%m-%d %H:%M:%S'),
+        'startTimeGMT': (start - timedelta(hours=2)).strftime('%Y-%m-%d %H:%M:%S'),
+        'duration': duration,
+        'movingDuration': round(duration * rng.uniform(0.9, 1.0), 1),
+        'distance': round(duration * average_speed, 1),
+        'calories': round(duration / 60 * rng.uniform(8, 14)),
+        'averageHR': average_hr,
+        'maxHR': average_hr + rng.randint(10, 30),
+        'elevationGain': round(rng.uniform(0, 900), 1),
+        'elevationLoss': round(rng.uniform(0, 900), 1),
+        'averageSpeed': average_speed,
+        'maxSpeed': round(average_speed * rng.uniform(1.3, 2.0), 3),
+        'steps': rng.randint(2000, 20000) if type_key in ('running', 'trail_running', 'walking') else None,
+        'deviceId': 3_000_000_000 + seed,
+        'hasPolyline': True,
+        'manufacturer': 'GARMIN',
+    }
+    if has_power:
+        average_power = rng.randint(150, 280)
+        activity['avgPower'] = average_power
+        activity['maxPower'] = average_power + rng.randint(200, 600)
+        activity['normPower'] = average_power + rng.randint(5, 30)
+    return activity
+
+
+def generate_detail(activity_id, seed, samples):
+    index = FIRST_ACTIVITY_ID + config.activity_count - activity_id
+    summary = generate_activity(index, seed)
+    rng = random.Random(seed * 7_919 + activity_id)
+    metrics = []
+    elapsed = 0.0
+    step = summary['duration'] / max(samples, 1)
+    for _ in range(samples):
+        elapsed += step
+        metrics.append({'metrics': [
+            round(elapsed, 1),
+            round(summary['averageSpeed'] * rng.uniform(0.7, 1.3), 3),
+            round(summary['averageHR'] * rng.uniform(0.85, 1.1)),
+            round(rng.uniform(100, 400), 1),
+            round(45.0 + rng.uniform(-0.05, 0.05), 6),
+            round(7.0 + rng.uniform(-0.05, 0.05), 6),
+        ]})
+    return {
+        'activityId': activity_id,
+        'measurementCount': 6,
+        'metricsCount': samples,
+        'metricDescriptors': [
+            {'metricsIndex': 0, 'key': 'sumElapsedDuration', 'unit': {'key': 'second'}},
+            {'metricsIndex': 1, 'key': 'directSpeed', 'unit': {'key': 'mps'}},
+            {'metricsIndex': 2, 'key': 'directHeartRate', 'unit': {'key': 'bpm'}},
+            {'metricsIndex': 3, 'key': 'directElevation', 'unit': {'key': 'meter'}},
+            {'metricsIndex': 4, 'key': 'directLatitude', 'unit': {'key': 'dd'}},
+            {'metricsIndex': 5, 'key': 'directLongitude', 'unit': {'key': 'dd'}},
+        ],
+        'activityDetailMetrics': metrics,
+        'summary': summary,
+    }
+
+
+def simulate_latency(mean_ms):
+    jitter = config.latency_jitter_ms
+    delay = max(0.0, mean_ms + random.uniform(-jitter, jitter))
+    if delay:
+        time.sleep(delay / 1000.0)
+
+
+def injected_failure():
+    """Returns an error response for a share of calls, per the configured rates, else None."""
+    roll = random.random()
+    if roll < config.throttle_rate:
+        return jsonify({'status': 'error', 'message': 'Synthetic throttling'}), 429
+    if roll < config.throttle_rate + config.error_rate:
+        return jsonify({'status': 'error', 'message': 'Synthetic failure'}), 500
+    return None
+
+
+def current_user():
+    with logged_in_lock:
+        return logged_in.get(request.headers.get(SESSION_HEADER))
+
+
+@app.route('/garmin/login', methods=['POST'])
+def login():
+    data = request.get_json()
+    if not data or 'username' not in data or 'password' not in data:
+        return jsonify({'status': 'error', 'message': 'Username and password required'}), 400
+    simulate_latency(config.latency_ms)
+    with logged_in_lock:
+        logged_in[request.headers.get(SESSION_HEADER)] = data['username']
+    return jsonify({'status': 'success', 'message': 'Garmin login successful'})
+
+
+@app.route('/garmin/status', methods=['GET'])
+def status():
+    username = current_user()
+    if username:
+        return jsonify({'status': 'logged_in', 'username': username})
+    return jsonify({'status': 'logged_out'})
+
+
+@app.route('/garmin/logout', methods=['POST'])
+def logout():
+    with logged_in_lock:
+        logged_in.pop(request.headers.get(SESSION_HEADER), None)
+    return jsonify({'status': 'success', 'message': 'Garmin logout successful'})
+
+
+@app.route('/hello', methods=['GET'])
+def hello():
+    name = request.args.get('name', 'World')
+    return f"Hello, {name} from Python!"
+
+
+@app.route('/garmin/activities', methods=['GET'])
+def get_activities():
+    if not current_user():
+        return jsonify({'status': 'error', 'message': 'Not logged in'}), 401
+    simulate_latency(config.latency_ms)
+    failure = injected_failure()
+    if failure:
+        return failure
+    start = max(request.args.get('start', 0, type=int), 0)
+    limit = min(max(request.args.get('limit', 10, type=int), 0), config.max_page_size)
+    end = min(start + limit, config.activity_count)
+    seed = config.seed
+    return jsonify([generate_activity(index, seed) for index in range(start, end)])
+
+
+@app.route('/garmin/activity_detail/<int:activity_id>', methods=['GET'])
+def get_activity_detail(activity_id):
+    if not current_user():
+        return jsonify({'status': 'error', 'message': 'Not logged in'}), 401
+    simulate_latency(config.detail_latency_ms)
+    failure = injected_failure()
+    if failure:
+        return failure
+    if not activity_id_at(config.activity_count - 1) <= activity_id <= activity_id_at(0):
+        return jsonify({'status': 'error', 'message': f'Activity {activity_id} not found'}), 500
+    return jsonify(generate_detail(activity_id, config.seed, config.detail_samples))
+
+
+@app.route('/synthetic/config', methods=['GET', 'POST'])
+def synthetic_config():
+    if request.method == 'POST':
+        try:
+            config.update(request.get_json() or {})
+        except (TypeError, ValueError) as e:
+            return jsonify({'status': 'error', 'message': str(e)}), 400
+    return jsonify(config.as_dict())
+
+
+if __name__ == '__main__':
+    WSGIRequestHandler.protocol_version = "HTTP/1.1"
+    app.run(host='0.0.0.0', port=int(os.getenv('SYNTHETIC_PORT', '5001')), threaded=True)
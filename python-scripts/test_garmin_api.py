@@ -1,5 +1,6 @@
 import unittest
 from unittest.mock import MagicMock, patch
+import gzip
 import json
 
 import garmin_api
@@ -112,5 +113,144 @@ class GarminApiTest(unittest.TestCase):
         self.assertEqual(response.status_code, 401)
         self.assertEqual(json.loads(response.data)['status'], 'error')
 
+    def test_garmin_activities_throttled_returns_429(self):
+        garmin_api.api_client.get_activities = MagicMock(
+            side_effect=garmin_api.GarminConnectTooManyRequestsError("Too many requests"))
+        response = self.app.get('/garmin/activities?start=0&limit=2')
+        self.assertEqual(response.status_code, 429)
+        self.assertEqual(json.loads(response.data)['status'], 'error')
+
+
+class FakeClock:
+    def __init__(self):
+        self.now = 0.0
+
+    def __call__(self):
+        return self.now
+
+
+class SessionRegistryTest(unittest.TestCase):
+
+    def setUp(self):
+        self.clock = FakeClock()
+        self.registry = garmin_api.SessionRegistry(idle_timeout=60, max_sessions=2, clock=self.clock)
+
+    def test_get_returns_registered_client(self):
+        client = MockGarmin()
+        self.registry.put('alice', client)
+        self.assertIs(self.registry.get('alice'), client)
+        self.assertIsNone(self.registry.get('bob'))
+
+    def test_idle_sessions_are_evicted(self):
+        self.registry.put('alice', MockGarmin())
+        self.clock.now = 61
+        self.assertIsNone(self.registry.get('alice'))
+        self.assertEqual(len(self.registry), 0)
+
+    def test_access_keeps_session_alive(self):
+        self.registry.put('alice', MockGarmin())
+        self.clock.now = 50
+        self.assertIsNotNone(self.registry.get('alice'))
+        self.clock.now = 100
+        self.assertIsNotNone(self.registry.get('alice'))
+
+    def test_cap_evicts_least_recently_used(self):
+        self.registry.put('alice', MockGarmin())
+        self.clock.now = 1
+        self.registry.put('bob', MockGarmin())
+        self.clock.now = 2
+        self.registry.get('alice')
+        self.registry.put('carol', MockGarmin())
+        self.assertIsNone(self.registry.get('bob'))
+        self.assertIsNotNone(self.registry.get('alice'))
+        self.assertIsNotNone(self.registry.get('carol'))
+
+
+class GarminApiSessionTest(unittest.TestCase):
+
+    def setUp(self):
+        self.app = garmin_api.app.test_client()
+        self.app.testing = True
+        self.garmin_patcher = patch('garmin_api.Garmin', new=MockGarmin)
+        self.garmin_patcher.start()
+        self.sessions_patcher = patch('garmin_api.sessions', new=garmin_api.SessionRegistry(idle_timeout=60, max_sessions=10))
+        self.sessions_patcher.start()
+        garmin_api.api_client = None
+
+    def tearDown(self):
+        self.garmin_patcher.stop()
+        self.sessions_patcher.stop()
+        garmin_api.api_client = None
+
+    def login(self, handle):
+        return self.app.post('/garmin/login', data=json.dumps({
+            'username': 'test@example.com',
+            'password': 'password'
+        }), content_type='application/json', headers={garmin_api.SESSION_HEADER: handle})
+
+    def test_login_with_session_header_does_not_touch_legacy_client(self):
+        response = self.login('session-a')
+        self.assertEqual(response.status_code, 200)
+        self.assertIsNone(garmin_api.api_client)
+        self.assertEqual(len(garmin_api.sessions), 1)
+
+    def test_sessions_are_isolated(self):
+        self.login('session-a')
+        response = self.app.get('/garmin/activities', headers={garmin_api.SESSION_HEADER: 'session-a'})
+        self.assertEqual(response.status_code, 200)
+        response = self.app.get('/garmin/activities', headers={garmin_api.SESSION_HEADER: 'session-b'})
+        self.assertEqual(response.status_code, 401)
+
+    def test_logout_only_ends_own_session(self):
+        self.login('session-a')
+        self.login('session-b')
+        self.app.post('/garmin/logout', headers={garmin_api.SESSION_HEADER: 'session-a'})
+        status_a = json.loads(self.app.get('/garmin/status', headers={garmin_api.SESSION_HEADER: 'session-a'}).data)
+        status_b = json.loads(self.app.get('/garmin/status', headers={garmin_api.SESSION_HEADER: 'session-b'}).data)
+        self.assertEqual(status_a['status'], 'logged_out')
+        self.assertEqual(status_b['status'], 'logged_in')
+
+
+class AcceptsGzipTest(unittest.TestCase):
+
+    def test_plain_gzip_is_accepted(self):
+        self.assertTrue(garmin_api.accepts_gzip('gzip, x-gzip, deflate'))
+
+    def test_zero_quality_is_refused(self):
+        self.assertFalse(garmin_api.accepts_gzip('deflate, gzip;q=0'))
+
+    def test_missing_header_is_refused(self):
+        self.assertFalse(garmin_api.accepts_gzip(None))
+        self.assertFalse(garmin_api.accepts_gzip('identity'))
+
+
+class GarminApiCompressionTest(unittest.TestCase):
+
+    def setUp(self):
+        self.app = garmin_api.app.test_client()
+        self.app.testing = True
+        self.api_client_patcher = patch('garmin_api.api_client', new=MockGarmin())
+        self.api_client_patcher.start()
+        self.min_bytes_patcher = patch('garmin_api.COMPRESSION_MIN_BYTES', new=0)
+        self.min_bytes_patcher.start()
+
+    def tearDown(self):
+        self.api_client_patcher.stop()
+        self.min_bytes_patcher.stop()
+        garmin_api.api_client = None
+
+    def test_activities_are_gzipped_when_accepted(self):
+        response = self.app.get('/garmin/activities', headers={'Accept-Encoding': 'gzip'})
+        self.assertEqual(response.status_code, 200)
+        self.assertEqual(response.headers['Content-Encoding'], 'gzip')
+        data = json.loads(gzip.decompress(response.data))
+        self.assertEqual(data[0]['activityId'], 1)
+
+    def test_plain_json_without_accept_encoding(self):
+        response = self.app.get('/garmin/activities')
+        self.assertNotIn('Content-Encoding', response.headers)
+        self.assertEqual(json.loads(response.data)[0]['activityId'], 1)
+
+
 if __name__ == '__main__':
     unittest.main()
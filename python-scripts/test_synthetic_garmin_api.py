@@ -0,0 +1,66 @@
+import json
+import unittest
+from unittest.mock import patch
+
+import synthetic_garmin_api as synthetic
+
+
+class GeneratorTest(unittest.TestCase):
+
+    def test_activities_are_deterministic_for_a_seed(self):
+        self.assertEqual(synthetic.generate_activity(5, seed=1), synthetic.generate_activity(5, seed=1))
+        self.assertNotEqual(synthetic.generate_activity(5, seed=1), synthetic.generate_activity(5, seed=2))
+
+    def test_activities_are_listed_newest_first(self):
+        newer = synthetic.generate_activity(0, seed=1)
+        older = synthetic.generate_activity(1, seed=1)
+        self.assertGreater(newer['activityId'], older['activityId'])
+        self.assertGreater(newer['startTimeLocal'], older['startTimeLocal'])
+
+    def test_detail_matches_its_summary(self):
+        activity = synthetic.generate_activity(3, seed=1)
+        detail = synthetic.generate_detail(activity['activityId'], seed=1, samples=10)
+        self.assertEqual(detail['summary'], activity)
+        self.assertEqual(len(detail['activityDetailMetrics']), 10)
+
+
+class SyntheticApiTest(unittest.TestCase):
+
+    def setUp(self):
+        self.app = synthetic.app.test_client()
+        self.app.testing = True
+        self.config_patcher = patch('synthetic_garmin_api.config', new=synthetic.SyntheticConfig())
+        self.config_patcher.start()
+        synthetic.config.update({'activity_count': 25, 'latency_ms': 0, 'latency_jitter_ms': 0, 'detail_latency_ms': 0,
+                                 'max_page_size': 10})
+        self.headers = {synthetic.SESSION_HEADER: 'session-a'}
+        self.app.post('/garmin/login', data=json.dumps({'username': 'u', 'password': 'p'}),
+                      content_type='application/json', headers=self.headers)
+
+    def tearDown(self):
+        self.config_patcher.stop()
+        synthetic.logged_in.clear()
+
+    def test_pages_are_capped_and_end_with_a_short_page(self):
+        first = json.loads(self.app.get('/garmin/activities?start=0&limit=50', headers=self.headers).data)
+        last = json.loads(self.app.get('/garmin/activities?start=20&limit=10', headers=self.headers).data)
+        self.assertEqual(len(first), 10)
+        self.assertEqual(len(last), 5)
+
+    def test_error_rate_injects_failures(self):
+        synthetic.config.update({'error_rate': 1.0})
+        response = self.app.get('/garmin/activities', headers=self.headers)
+        self.assertEqual(response.status_code, 500)
+
+    def test_throttle_rate_injects_429(self):
+        synthetic.config.update({'throttle_rate': 1.0})
+        response = self.app.get('/garmin/activity_detail/%d' % synthetic.activity_id_at(0), headers=self.headers)
+        self.assertEqual(response.status_code, 429)
+
+    def test_requires_login(self):
+        response = self.app.get('/garmin/activities', headers={synthetic.SESSION_HEADER: 'session-b'})
+        self.assertEqual(response.status_code, 401)
+
+
+if __name__ == '__main__':
+    unittest.main()
@@ -3,13 +3,16 @@ package com.goldenbridge.app.config;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class AppConfig {
 
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, ClientHttpRequestFactory pythonServiceRequestFactory) {
+        return builder
+                .requestFactory(() -> pythonServiceRequestFactory)
+                .build();
     }
 }
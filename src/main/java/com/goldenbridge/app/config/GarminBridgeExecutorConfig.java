@@ -0,0 +1,49 @@
+package com.goldenbridge.app.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor for work that fans out over the Python bridge (bulk fetches, per-user syncs).
+ * <p>
+ * Follows {@code spring.threads.virtual.enabled}: on a Java 21+ runtime with the switch on,
+ * Spring Boot serves Tomcat requests on virtual threads and this executor starts one virtual
+ * thread per task, so a call blocked on Garmin costs a few hundred bytes of heap instead of a
+ * platform thread. Otherwise a bounded platform thread pool is used.
+ * <p>
+ * The project targets Java 17, where Spring Boot ignores the switch and the virtual executor is
+ * never created; it needs a Java 21+ runtime. Concurrency towards the bridge is still bounded by
+ * the {@code pythonBridge} bulkhead and the HTTP connection pool, so switching thread model alone
+ * changes nothing beyond 20 calls: the {@code virtual-threads} profile raises all three together.
+ */
+@Configuration
+public class GarminBridgeExecutorConfig {
+
+    public static final String THREAD_NAME_PREFIX = "garmin-bridge-";
+
+    @Bean(name = "garminBridgeExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public AsyncTaskExecutor virtualGarminBridgeExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(THREAD_NAME_PREFIX);
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+
+    @Bean(name = "garminBridgeExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public AsyncTaskExecutor platformGarminBridgeExecutor(PythonServiceProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
+        executor.setCorePoolSize(properties.getExecutor().getMaxThreads());
+        executor.setMaxPoolSize(properties.getExecutor().getMaxThreads());
+        executor.setQueueCapacity(properties.getExecutor().getQueueCapacity());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -0,0 +1,51 @@
+package com.goldenbridge.app.config;
+
+import com.goldenbridge.app.service.AimdTokenBucket;
+import com.goldenbridge.app.service.GarminRateLimiter;
+import com.goldenbridge.app.service.PostgresRateBucket;
+import com.goldenbridge.app.service.RateBucket;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * Builds the {@link GarminRateLimiter} in front of every Garmin call. With
+ * {@code garmin.rate-limit.shared} the global bucket lives in Postgres so all instances share it;
+ * per-user buckets are always local, since a user's Garmin session lives on one instance.
+ */
+@Configuration
+@EnableConfigurationProperties(GarminRateLimitProperties.class)
+public class GarminRateLimitConfig {
+
+    static final String GLOBAL_BUCKET_NAME = "garmin-global";
+
+    @Bean
+    public GarminRateLimiter garminRateLimiter(GarminRateLimitProperties properties, ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                               @Value("${garmin.sessions.idle-timeout:30m}") Duration sessionIdleTimeout) {
+        if (!properties.isEnabled()) {
+            return unlimited();
+        }
+        RateBucket global = properties.isShared()
+                ? new PostgresRateBucket(jdbcTemplate.getObject(), GLOBAL_BUCKET_NAME, properties.getGlobal(),
+                        properties.getDecreaseFactor(), properties.getRecoveryTime())
+                : new AimdTokenBucket(properties.getGlobal(), properties.getDecreaseFactor(), properties.getRecoveryTime());
+        return new GarminRateLimiter(global,
+                () -> new AimdTokenBucket(properties.getPerUser(), properties.getDecreaseFactor(), properties.getRecoveryTime()),
+                properties.getMaxWait(), sessionIdleTimeout);
+    }
+
+    /**
+     * A limiter that never waits, for {@code garmin.rate-limit.enabled=false} and for callers
+     * constructing a bridge client outside Spring.
+     */
+    public static GarminRateLimiter unlimited() {
+        GarminRateLimitProperties.Bucket unbounded = new GarminRateLimitProperties.Bucket(Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE);
+        return new GarminRateLimiter(new AimdTokenBucket(unbounded, 0.5, Duration.ofSeconds(1)),
+                () -> new AimdTokenBucket(unbounded, 0.5, Duration.ofSeconds(1)), Duration.ZERO, Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,81 @@
+package com.goldenbridge.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Pacing of outbound Garmin traffic through the Python bridge ({@code garmin.rate-limit.*}).
+ */
+@ConfigurationProperties(prefix = "garmin.rate-limit")
+public class GarminRateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Keep the global bucket in the {@code garmin_rate_limit_buckets} table so every instance
+     * draws from one budget. Off, each instance paces itself independently.
+     */
+    private boolean shared = false;
+
+    /** Longest a caller waits for a token before the call fails with a 503. */
+    private Duration maxWait = Duration.ofSeconds(10);
+
+    /** Factor applied to the rate when Garmin throttles (multiplicative decrease). */
+    private double decreaseFactor = 0.5;
+
+    /** Time for a throttled rate to climb linearly from its minimum back to its maximum. */
+    private Duration recoveryTime = Duration.ofMinutes(2);
+
+    /** Budget shared by all calls. */
+    private final Bucket global = new Bucket(10, 0.5, 20);
+
+    /** Budget of each Garmin session, i.e. each user. */
+    private final Bucket perUser = new Bucket(2, 0.1, 5);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isShared() { return shared; }
+    public void setShared(boolean shared) { this.shared = shared; }
+
+    public Duration getMaxWait() { return maxWait; }
+    public void setMaxWait(Duration maxWait) { this.maxWait = maxWait; }
+
+    public double getDecreaseFactor() { return decreaseFactor; }
+    public void setDecreaseFactor(double decreaseFactor) { this.decreaseFactor = decreaseFactor; }
+
+    public Duration getRecoveryTime() { return recoveryTime; }
+    public void setRecoveryTime(Duration recoveryTime) { this.recoveryTime = recoveryTime; }
+
+    public Bucket getGlobal() { return global; }
+
+    public Bucket getPerUser() { return perUser; }
+
+    public static class Bucket {
+
+        /** Requests per second when Garmin is not throttling. */
+        private double maxRate;
+
+        /** Floor the rate never drops below however often Garmin throttles. */
+        private double minRate;
+
+        /** Requests that may go out back to back after a quiet period. */
+        private double burst;
+
+        public Bucket(double maxRate, double minRate, double burst) {
+            this.maxRate = maxRate;
+            this.minRate = minRate;
+            this.burst = burst;
+        }
+
+        public double getMaxRate() { return maxRate; }
+        public void setMaxRate(double maxRate) { this.maxRate = maxRate; }
+
+        public double getMinRate() { return minRate; }
+        public void setMinRate(double minRate) { this.minRate = minRate; }
+
+        public double getBurst() { return burst; }
+        public void setBurst(double burst) { this.burst = burst; }
+    }
+}
@@ -0,0 +1,67 @@
+package com.goldenbridge.app.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Worker pool for per-user Garmin syncs, plus the small pool that streams their progress.
+ * <p>
+ * Each worker syncs one user at a time and holds a database connection while it writes a page,
+ * so the pool is sized to the smaller of the CPU budget and the connections Hikari can spare
+ * ({@code spring.datasource.hikari.maximum-pool-size} minus a reserve for request threads).
+ * {@code garmin.sync.parallelism} overrides the computed size.
+ */
+@Configuration
+@EnableScheduling
+public class GarminSyncExecutorConfig {
+
+    public static final String THREAD_NAME_PREFIX = "garmin-sync-";
+
+    /** Connections left for request threads and the scheduler while syncs run. */
+    static final int RESERVED_DB_CONNECTIONS = 2;
+
+    @Bean(name = "garminSyncExecutor")
+    public ThreadPoolTaskExecutor garminSyncExecutor(@Value("${garmin.sync.parallelism:0}") int configuredParallelism,
+                                                     @Value("${garmin.sync.queue-capacity:10000}") int queueCapacity,
+                                                     @Value("${spring.datasource.hikari.maximum-pool-size:10}") int dbPoolSize) {
+        int parallelism = syncParallelism(configuredParallelism, Runtime.getRuntime().availableProcessors(), dbPoolSize);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Delivers sync progress to SSE streams off the sync threads. At most one delivery per user is
+     * queued at a time, so the queue is bounded by the number of users with open streams.
+     */
+    @Bean(name = "syncProgressExecutor")
+    public ThreadPoolTaskExecutor syncProgressExecutor(@Value("${garmin.sync.progress.delivery-threads:4}") int threads,
+                                                       @Value("${garmin.sync.progress.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("sync-progress-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Sync work is mostly waiting on the bridge, so two workers per core keep the CPU busy; past
+     * the connection budget extra workers would only queue on Hikari.
+     */
+    static int syncParallelism(int configured, int cores, int dbPoolSize) {
+        if (configured > 0) {
+            return configured;
+        }
+        return Math.max(1, Math.min(cores * 2, dbPoolSize - RESERVED_DB_CONNECTIONS));
+    }
+}
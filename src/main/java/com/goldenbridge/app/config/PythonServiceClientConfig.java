@@ -0,0 +1,77 @@
+package com.goldenbridge.app.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Pooled, keep-alive HTTP client used for every call to the Python Garmin bridge.
+ * Connections are reused across requests instead of being opened per call, and
+ * every phase of a call (acquire, connect, read) is bounded by a timeout.
+ * <p>
+ * With {@code python.service.compression} on, requests advertise gzip/deflate and the client
+ * inflates encoded responses as they are read, so callers still see a plain JSON stream.
+ */
+@Configuration
+@EnableConfigurationProperties(PythonServiceProperties.class)
+public class PythonServiceClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager pythonServiceConnectionManager(PythonServiceProperties properties) {
+        PythonServiceProperties.Pool pool = properties.getPool();
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(pool.getMaxTotal())
+                .setMaxConnPerRoute(pool.getMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(pool.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(pool.getReadTimeout()))
+                        .setValidateAfterInactivity(TimeValue.of(pool.getValidateAfterInactivity()))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pythonServiceHttpClient(PoolingHttpClientConnectionManager pythonServiceConnectionManager,
+                                                       PythonServiceProperties properties) {
+        PythonServiceProperties.Pool pool = properties.getPool();
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(pythonServiceConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(pool.getAcquireTimeout()))
+                        .setResponseTimeout(Timeout.of(pool.getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(pool.getIdleTimeout()));
+        if (!properties.isCompression()) {
+            builder.disableContentCompression();
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public ClientHttpRequestFactory pythonServiceRequestFactory(CloseableHttpClient pythonServiceHttpClient) {
+        return new HttpComponentsClientHttpRequestFactory(pythonServiceHttpClient);
+    }
+
+    /**
+     * Publishes {@code httpcomponents.httpclient.pool.*} gauges (leased, available,
+     * pending, max) tagged with {@code httpclient=python-bridge}.
+     */
+    @Bean
+    public MeterBinder pythonServiceConnectionPoolMetrics(PoolingHttpClientConnectionManager pythonServiceConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(pythonServiceConnectionManager, "python-bridge");
+    }
+}
@@ -0,0 +1,95 @@
+package com.goldenbridge.app.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Connection settings for the Python Garmin bridge ({@code python.service.*}).
+ */
+@ConfigurationProperties(prefix = "python.service")
+public class PythonServiceProperties {
+
+    private String baseUrl = "http://localhost:5001";
+
+    private final Pool pool = new Pool();
+
+    private final Executor executor = new Executor();
+
+    /**
+     * Ask the bridge for gzip-encoded responses ({@code Accept-Encoding: gzip}). The bridge falls
+     * back to plain JSON for small payloads or when this is off.
+     */
+    private boolean compression = true;
+
+    public String getBaseUrl() { return baseUrl; }
+    public void setBaseUrl(String baseUrl) { this.baseUrl = baseUrl; }
+
+    public Pool getPool() { return pool; }
+
+    public Executor getExecutor() { return executor; }
+
+    public boolean isCompression() { return compression; }
+    public void setCompression(boolean compression) { this.compression = compression; }
+
+    public static class Pool {
+
+        /** Upper bound on open connections across all routes. */
+        private int maxTotal = 50;
+
+        /** Upper bound on open connections to the bridge host. */
+        private int maxPerRoute = 20;
+
+        /** Time allowed to establish the TCP connection. */
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        /** Time allowed between bytes of a response before the call is aborted. */
+        private Duration readTimeout = Duration.ofSeconds(30);
+
+        /** Time a caller waits for a free pooled connection. */
+        private Duration acquireTimeout = Duration.ofSeconds(5);
+
+        /** Kept-alive connections idle for longer than this are closed. */
+        private Duration idleTimeout = Duration.ofSeconds(30);
+
+        /** Idle connections are re-validated before reuse after this long. */
+        private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+        public int getMaxTotal() { return maxTotal; }
+        public void setMaxTotal(int maxTotal) { this.maxTotal = maxTotal; }
+
+        public int getMaxPerRoute() { return maxPerRoute; }
+        public void setMaxPerRoute(int maxPerRoute) { this.maxPerRoute = maxPerRoute; }
+
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+        public Duration getReadTimeout() { return readTimeout; }
+        public void setReadTimeout(Duration readTimeout) { this.readTimeout = readTimeout; }
+
+        public Duration getAcquireTimeout() { return acquireTimeout; }
+        public void setAcquireTimeout(Duration acquireTimeout) { this.acquireTimeout = acquireTimeout; }
+
+        public Duration getIdleTimeout() { return idleTimeout; }
+        public void setIdleTimeout(Duration idleTimeout) { this.idleTimeout = idleTimeout; }
+
+        public Duration getValidateAfterInactivity() { return validateAfterInactivity; }
+        public void setValidateAfterInactivity(Duration validateAfterInactivity) { this.validateAfterInactivity = validateAfterInactivity; }
+    }
+
+    /**
+     * Platform-thread executor used for bridge work when virtual threads are disabled.
+     */
+    public static class Executor {
+
+        private int maxThreads = 20;
+
+        private int queueCapacity = 500;
+
+        public int getMaxThreads() { return maxThreads; }
+        public void setMaxThreads(int maxThreads) { this.maxThreads = maxThreads; }
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    }
+}
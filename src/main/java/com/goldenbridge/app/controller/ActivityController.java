@@ -0,0 +1,85 @@
+package com.goldenbridge.app.controller;
+
+import com.goldenbridge.app.dto.ActivitySummaryResponse;
+import com.goldenbridge.app.dto.CursorPage;
+import com.goldenbridge.app.dto.PageCursor;
+import com.goldenbridge.app.entity.User;
+import com.goldenbridge.app.repository.ActivityRawPayloadRepository;
+import com.goldenbridge.app.repository.ActivityRepository;
+import com.goldenbridge.app.repository.UserRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.function.Function;
+
+@RestController
+@RequestMapping("/api/activities")
+public class ActivityController {
+
+    private final ActivityRepository activityRepository;
+    private final ActivityRawPayloadRepository rawPayloads;
+    private final UserRepository userRepository;
+
+    public ActivityController(ActivityRepository activityRepository, ActivityRawPayloadRepository rawPayloads,
+                              UserRepository userRepository) {
+        this.activityRepository = activityRepository;
+        this.rawPayloads = rawPayloads;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Lists the caller's stored activities, newest first. Pass the returned {@code nextCursor} back
+     * as {@code cursor} for the following page; it is absent on the last page. Answers 400 for a
+     * cursor this endpoint did not issue.
+     */
+    @GetMapping
+    public ResponseEntity<CursorPage<ActivitySummaryResponse>> listActivities(@RequestParam(required = false) String cursor,
+                                                                              @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit,
+                                                                              Principal principal) {
+        int pageSize = CursorPage.clampLimit(limit);
+        PageRequest fetch = PageRequest.ofSize(pageSize + 1);
+        User user = currentUser(principal);
+        List<ActivitySummaryResponse> rows;
+        if (cursor == null) {
+            rows = activityRepository.findFirstPageByUser(user, fetch);
+        } else {
+            PageCursor after;
+            try {
+                after = PageCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            rows = activityRepository.findPageByUserAfter(user, after.position(), after.id(), fetch);
+        }
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize,
+                activity -> new PageCursor(activity.activityDate(), activity.id()), Function.identity()));
+    }
+
+    /**
+     * Streams the raw Garmin payload of one of the caller's activities, decompressed on the fly
+     * without holding it in memory. Answers 404 if the activity is not the caller's or has no
+     * raw payload.
+     */
+    @GetMapping(path = "/{activityId}/raw", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> rawPayload(@PathVariable Long activityId, Principal principal) {
+        if (!activityRepository.existsByIdAndUser(activityId, currentUser(principal)) || !rawPayloads.hasRawData(activityId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(out -> rawPayloads.streamRawData(activityId, out));
+    }
+
+    private User currentUser(Principal principal) {
+        return userRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + principal.getName()));
+    }
+}
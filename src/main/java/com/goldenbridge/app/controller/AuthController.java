@@ -7,7 +7,11 @@ import com.goldenbridge.app.dto.GarminLoginResponse;
 import com.goldenbridge.app.dto.GarminLogoutResponse;
 import com.goldenbridge.app.dto.GarminStatusResponse;
 import com.goldenbridge.app.security.JwtTokenProvider;
+import com.goldenbridge.app.service.GarminActivityCache;
 import com.goldenbridge.app.service.GarminIntegrationService;
+import com.goldenbridge.app.service.GarminSessionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -19,18 +23,27 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.security.Principal;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider jwtTokenProvider;
     private final GarminIntegrationService garminIntegrationService;
+    private final GarminActivityCache garminActivityCache;
+    private final GarminSessionRegistry garminSessionRegistry;
 
-    public AuthController(AuthenticationManager authenticationManager, JwtTokenProvider jwtTokenProvider, GarminIntegrationService garminIntegrationService) {
+    public AuthController(AuthenticationManager authenticationManager, JwtTokenProvider jwtTokenProvider, GarminIntegrationService garminIntegrationService,
+                          GarminActivityCache garminActivityCache, GarminSessionRegistry garminSessionRegistry) {
         this.authenticationManager = authenticationManager;
         this.jwtTokenProvider = jwtTokenProvider;
         this.garminIntegrationService = garminIntegrationService;
+        this.garminActivityCache = garminActivityCache;
+        this.garminSessionRegistry = garminSessionRegistry;
     }
 
     @PostMapping("/login")
@@ -50,24 +63,48 @@ public class AuthController {
     }
 
     @PostMapping("/garmin/login")
-    public ResponseEntity<GarminLoginResponse> garminLogin(@RequestBody GarminLoginRequest garminLoginRequest) {
-        GarminLoginResponse response = garminIntegrationService.loginToGarmin(garminLoginRequest);
-        if ("success".equals(response.status())) {
-            // Here you would typically save the credentials securely
-            return ResponseEntity.ok(response);
-        } else {
+    public ResponseEntity<GarminLoginResponse> garminLogin(@RequestBody GarminLoginRequest garminLoginRequest, Principal principal) {
+        // Log in on a fresh handle: a failed attempt must not cost the user a working session
+        String sessionHandle = garminSessionRegistry.newHandle();
+        GarminLoginResponse response = garminIntegrationService.loginToGarmin(sessionHandle, garminLoginRequest);
+        if (!"success".equals(response.status())) {
             return ResponseEntity.status(401).body(response);
         }
+        // A new Garmin session may belong to a different Garmin account
+        garminActivityCache.invalidateUser(principal.getName());
+        garminSessionRegistry.activate(principal.getName(), sessionHandle)
+                .ifPresent(replaced -> logOutReplacedSession(principal.getName(), replaced));
+        // Here you would typically save the credentials securely
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/garmin/status")
-    public ResponseEntity<GarminStatusResponse> garminStatus() {
-        return ResponseEntity.ok(garminIntegrationService.getGarminStatus());
+    public ResponseEntity<GarminStatusResponse> garminStatus(Principal principal) {
+        return ResponseEntity.ok(garminSessionRegistry.findSession(principal.getName())
+                .map(garminIntegrationService::getGarminStatus)
+                .orElseGet(() -> new GarminStatusResponse("logged_out", null)));
     }
 
     @PostMapping("/garmin/logout")
-    public ResponseEntity<GarminLogoutResponse> garminLogout() {
-        return ResponseEntity.ok(garminIntegrationService.logoutFromGarmin());
+    public ResponseEntity<GarminLogoutResponse> garminLogout(Principal principal) {
+        garminActivityCache.invalidateUser(principal.getName());
+        GarminLogoutResponse response = garminSessionRegistry.findSession(principal.getName())
+                .map(garminIntegrationService::logoutFromGarmin)
+                .orElseGet(() -> new GarminLogoutResponse("success", "Garmin logout successful"));
+        garminSessionRegistry.closeSession(principal.getName());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Frees the bridge session a new login replaced, so it stops counting against the bridge's
+     * session limit. Best effort: the bridge evicts it on idle anyway.
+     */
+    private void logOutReplacedSession(String username, String replacedHandle) {
+        try {
+            garminIntegrationService.logoutFromGarmin(replacedHandle);
+        } catch (RuntimeException e) {
+            logger.warn("Could not log out the replaced Garmin session of {}: {}", username, e.getMessage());
+        }
     }
 
     @GetMapping("/protected")
@@ -1,26 +1,38 @@
 package com.goldenbridge.app.controller;
 
+import com.goldenbridge.app.service.GarminActivityCache;
 import com.goldenbridge.app.service.GarminIntegrationService;
+import com.goldenbridge.app.service.GarminSessionRegistry;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.security.Principal;
+
 @RestController
 @RequestMapping("/api/garmin")
 public class GarminController {
 
     private final GarminIntegrationService garminIntegrationService;
+    private final GarminActivityCache garminActivityCache;
+    private final GarminSessionRegistry garminSessionRegistry;
 
-    public GarminController(GarminIntegrationService garminIntegrationService) {
+    public GarminController(GarminIntegrationService garminIntegrationService, GarminActivityCache garminActivityCache,
+                            GarminSessionRegistry garminSessionRegistry) {
         this.garminIntegrationService = garminIntegrationService;
+        this.garminActivityCache = garminActivityCache;
+        this.garminSessionRegistry = garminSessionRegistry;
     }
 
     @GetMapping("/activities")
-    public ResponseEntity<String> getGarminActivities(@RequestParam(defaultValue = "0") int start, @RequestParam(defaultValue = "10") int limit) {
-        // This assumes the user has already logged in to Garmin via the /garmin/login endpoint in AuthController
-        String activities = garminIntegrationService.getGarminActivities(start, limit);
+    public ResponseEntity<String> getGarminActivities(@RequestParam(defaultValue = "0") int start, @RequestParam(defaultValue = "10") int limit,
+                                                      Principal principal) {
+        // The user must already have logged in to Garmin via the /garmin/login endpoint in AuthController
+        String sessionHandle = garminSessionRegistry.requireSession(principal.getName());
+        String activities = garminActivityCache.get(principal.getName(), start, limit,
+                () -> garminIntegrationService.getGarminActivities(sessionHandle, start, limit));
         return ResponseEntity.ok(activities);
     }
 }
@@ -0,0 +1,121 @@
+package com.goldenbridge.app.controller;
+
+import com.goldenbridge.app.dto.CursorPage;
+import com.goldenbridge.app.dto.PageCursor;
+import com.goldenbridge.app.dto.SyncStatusResponse;
+import com.goldenbridge.app.entity.SyncHistory;
+import com.goldenbridge.app.entity.User;
+import com.goldenbridge.app.repository.SyncHistoryRepository;
+import com.goldenbridge.app.repository.UserRepository;
+import com.goldenbridge.app.service.GarminSyncOrchestrator;
+import com.goldenbridge.app.service.SyncCancellations;
+import com.goldenbridge.app.service.SyncProgressBroadcaster;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.security.Principal;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    private final GarminSyncOrchestrator garminSyncOrchestrator;
+    private final SyncHistoryRepository syncHistoryRepository;
+    private final UserRepository userRepository;
+    private final SyncProgressBroadcaster syncProgressBroadcaster;
+    private final SyncCancellations syncCancellations;
+
+    public SyncController(GarminSyncOrchestrator garminSyncOrchestrator, SyncHistoryRepository syncHistoryRepository,
+                          UserRepository userRepository, SyncProgressBroadcaster syncProgressBroadcaster,
+                          SyncCancellations syncCancellations) {
+        this.garminSyncOrchestrator = garminSyncOrchestrator;
+        this.syncHistoryRepository = syncHistoryRepository;
+        this.userRepository = userRepository;
+        this.syncProgressBroadcaster = syncProgressBroadcaster;
+        this.syncCancellations = syncCancellations;
+    }
+
+    /**
+     * Starts a manual sync for the caller and returns immediately; follow {@code /api/sync/progress}
+     * for live progress.
+     */
+    @PostMapping
+    public ResponseEntity<SyncStatusResponse> startSync(Principal principal) {
+        GarminSyncOrchestrator.SyncHandle handle = garminSyncOrchestrator.triggerSync(currentUser(principal), SyncHistory.SyncType.MANUAL);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(SyncStatusResponse.from(handle.history()));
+    }
+
+    @GetMapping("/latest")
+    public ResponseEntity<SyncStatusResponse> latestSync(Principal principal) {
+        return syncHistoryRepository.findFirstByUserOrderBySyncStartedAtDesc(currentUser(principal))
+                .map(SyncStatusResponse::from)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Lists the caller's sync runs, newest first. Pass the returned {@code nextCursor} back as
+     * {@code cursor} for the following page; it is absent on the last page. Answers 400 for a
+     * cursor this endpoint did not issue.
+     */
+    @GetMapping("/history")
+    public ResponseEntity<CursorPage<SyncStatusResponse>> syncHistory(@RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit,
+                                                                      Principal principal) {
+        int pageSize = CursorPage.clampLimit(limit);
+        PageRequest fetch = PageRequest.ofSize(pageSize + 1);
+        User user = currentUser(principal);
+        List<SyncHistory> rows;
+        if (cursor == null) {
+            rows = syncHistoryRepository.findFirstPageByUser(user, fetch);
+        } else {
+            PageCursor after;
+            try {
+                after = PageCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            rows = syncHistoryRepository.findPageByUserAfter(user, after.position(), after.id(), fetch);
+        }
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize,
+                history -> new PageCursor(history.getSyncStartedAt(), history.getId()), SyncStatusResponse::from));
+    }
+
+    /**
+     * Asks one of the caller's running syncs to stop. The sync ends {@code CANCELLED} at its next
+     * page boundary, keeping what it has stored; follow {@code /api/sync/progress} to see it stop.
+     * Answers 409 if the sync has already finished.
+     */
+    @PostMapping("/{syncId}/cancel")
+    public ResponseEntity<SyncStatusResponse> cancelSync(@PathVariable Long syncId, Principal principal) {
+        return syncHistoryRepository.findByIdAndUser(syncId, currentUser(principal))
+                .map(history -> ResponseEntity.status(syncCancellations.request(history.getId()) ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                        .body(SyncStatusResponse.from(history)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Streams the caller's sync progress as Server-Sent Events named {@code progress}, starting with
+     * the latest known state. Served from memory; opening or holding the stream queries nothing.
+     */
+    @GetMapping(path = "/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter syncProgress(Principal principal) {
+        return syncProgressBroadcaster.subscribe(principal.getName());
+    }
+
+    private User currentUser(Principal principal) {
+        return userRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + principal.getName()));
+    }
+}
@@ -0,0 +1,25 @@
+package com.goldenbridge.app.dto;
+
+import com.goldenbridge.app.entity.Activity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * List-view columns of an {@link Activity}. Repositories select it directly with a JPQL
+ * constructor expression, so list queries never read the Garmin payload columns.
+ */
+public record ActivitySummaryResponse(
+        Long id,
+        String garminActivityId,
+        String activityName,
+        String activityType,
+        LocalDateTime activityDate,
+        Integer durationSeconds,
+        BigDecimal distanceMeters,
+        Integer calories,
+        Integer averageHeartRate,
+        Integer averagePower,
+        BigDecimal elevationGainMeters,
+        Activity.SyncStatus syncStatus) {
+}
@@ -0,0 +1,72 @@
+package com.goldenbridge.app.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * One entry of the Garmin activity list as returned by the Python bridge.
+ * The original JSON object is kept in {@code raw} so it can be persisted as-is.
+ */
+public record GarminActivity(
+        long activityId,
+        String activityName,
+        String activityType,
+        LocalDateTime startTimeLocal,
+        Double durationSeconds,
+        Double distanceMeters,
+        Double calories,
+        Double averageHeartRate,
+        Double maxHeartRate,
+        Double averagePower,
+        Double maxPower,
+        Double elevationGainMeters,
+        Double averageSpeedMetersPerSecond,
+        Double maxSpeedMetersPerSecond,
+        JsonNode raw) {
+
+    private static final DateTimeFormatter GARMIN_LOCAL_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public static GarminActivity from(JsonNode node) {
+        return new GarminActivity(
+                node.path("activityId").asLong(),
+                text(node, "activityName"),
+                text(node.path("activityType"), "typeKey"),
+                dateTime(node, "startTimeLocal"),
+                number(node, "duration"),
+                number(node, "distance"),
+                number(node, "calories"),
+                number(node, "averageHR"),
+                number(node, "maxHR"),
+                number(node, "avgPower"),
+                number(node, "maxPower"),
+                number(node, "elevationGain"),
+                number(node, "averageSpeed"),
+                number(node, "maxSpeed"),
+                node);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static Double number(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || !value.isNumber() ? null : value.asDouble();
+    }
+
+    private static LocalDateTime dateTime(JsonNode node, String field) {
+        String value = text(node, field);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value, GARMIN_LOCAL_TIME);
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.parse(value);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.goldenbridge.app.dto;
+
+/**
+ * Outcome of fetching one activity's details: either the detail JSON or the reason it failed.
+ */
+public record GarminActivityDetailResult(long activityId, String detailJson, String error) {
+
+    public static GarminActivityDetailResult success(long activityId, String detailJson) {
+        return new GarminActivityDetailResult(activityId, detailJson, null);
+    }
+
+    public static GarminActivityDetailResult failure(long activityId, String error) {
+        return new GarminActivityDetailResult(activityId, null, error);
+    }
+
+    public boolean succeeded() {
+        return error == null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.goldenbridge.app.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset page: its sort timestamp and its id as tie-breaker.
+ * Clients only ever see it as an opaque URL-safe token.
+ */
+public record PageCursor(LocalDateTime position, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String key = position.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = key.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed page cursor");
+            }
+            return new PageCursor(LocalDateTime.parse(key.substring(0, separator)), Long.valueOf(key.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed page cursor", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.goldenbridge.app.dto;
+
+import com.goldenbridge.app.entity.SyncHistory;
+
+import java.time.LocalDateTime;
+
+public record SyncStatusResponse(
+        Long syncId,
+        String syncType,
+        String status,
+        LocalDateTime startedAt,
+        LocalDateTime completedAt,
+        int activitiesProcessed,
+        int activitiesSynced,
+        int activitiesSkipped,
+        int activitiesFailed,
+        String errorMessage) {
+
+    public static SyncStatusResponse from(SyncHistory history) {
+        return new SyncStatusResponse(
+                history.getId(),
+                history.getSyncType().name(),
+                history.getSyncStatus().name(),
+                history.getSyncStartedAt(),
+                history.getSyncCompletedAt(),
+                history.getActivitiesProcessed(),
+                history.getActivitiesSynced(),
+                history.getActivitiesSkipped(),
+                history.getActivitiesFailed(),
+                history.getErrorMessage());
+    }
+}
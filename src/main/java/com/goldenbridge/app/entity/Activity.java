@@ -3,10 +3,12 @@ package com.goldenbridge.app.entity;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.LazyGroup;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
@@ -19,25 +21,31 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
+// Range-partitioned by activity_date (V11 migration), so uniqueness is per (garmin_activity_id, activity_date)
 @Table(name = "activities", indexes = {
-    @Index(name = "idx_activity_garmin_id", columnList = "garmin_activity_id"),
-    @Index(name = "idx_activity_user_date", columnList = "user_id, activity_date"),
-    @Index(name = "idx_activity_sync_status", columnList = "sync_status")
+    @Index(name = "idx_activities_user_date", columnList = "user_id, activity_date")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_activities_garmin_id_date", columnNames = {"garmin_activity_id", "activity_date"})
 })
 @EntityListeners(AuditingEntityListener.class)
 public class Activity {
     
+    // Pooled sequence ids let Hibernate batch inserts (IDENTITY forces one round trip per row).
+    // ActivityBulkRepositoryImpl draws from the same sequence in the same block size.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activities_id_seq")
+    @SequenceGenerator(name = "activities_id_seq", sequenceName = "activities_id_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Garmin activity ID is required")
-    @Column(name = "garmin_activity_id", nullable = false, unique = true)
+    @Column(name = "garmin_activity_id", nullable = false)
     private String garminActivityId;
     
     @NotBlank(message = "Activity name is required")
@@ -81,8 +89,11 @@ public class Activity {
     @Column(name = "max_speed_kmh", precision = 6, scale = 2)
     private BigDecimal maxSpeedKmh;
     
-    @Column(name = "raw_data", columnDefinition = "TEXT")
-    private String rawData;
+    // Loads on first access only (needs the build's bytecode enhancement)
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("detail")
+    @Column(name = "detail_data", columnDefinition = "TEXT")
+    private String detailData;
     
     @Column(name = "fit_file_path")
     private String fitFilePath;
@@ -103,6 +114,12 @@ public class Activity {
     @Column(name = "last_sync_attempt")
     private LocalDateTime lastSyncAttempt;
     
+    @Column(name = "sync_attempts", nullable = false)
+    private int syncAttempts = 0;
+    
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
     @Column(name = "golden_cheetah_path")
     private String goldenCheetahPath;
     
@@ -158,14 +175,60 @@ public class Activity {
     public Integer getCalories() { return calories; }
     public void setCalories(Integer calories) { this.calories = calories; }
     
+    public Integer getAverageHeartRate() { return averageHeartRate; }
+    public void setAverageHeartRate(Integer averageHeartRate) { this.averageHeartRate = averageHeartRate; }
+    
+    public Integer getMaxHeartRate() { return maxHeartRate; }
+    public void setMaxHeartRate(Integer maxHeartRate) { this.maxHeartRate = maxHeartRate; }
+    
+    public Integer getAveragePower() { return averagePower; }
+    public void setAveragePower(Integer averagePower) { this.averagePower = averagePower; }
+    
+    public Integer getMaxPower() { return maxPower; }
+    public void setMaxPower(Integer maxPower) { this.maxPower = maxPower; }
+    
+    public BigDecimal getElevationGainMeters() { return elevationGainMeters; }
+    public void setElevationGainMeters(BigDecimal elevationGainMeters) { this.elevationGainMeters = elevationGainMeters; }
+    
+    public BigDecimal getAverageSpeedKmh() { return averageSpeedKmh; }
+    public void setAverageSpeedKmh(BigDecimal averageSpeedKmh) { this.averageSpeedKmh = averageSpeedKmh; }
+    
+    public BigDecimal getMaxSpeedKmh() { return maxSpeedKmh; }
+    public void setMaxSpeedKmh(BigDecimal maxSpeedKmh) { this.maxSpeedKmh = maxSpeedKmh; }
+    
+    public String getDetailData() { return detailData; }
+    public void setDetailData(String detailData) { this.detailData = detailData; }
+    
+    public String getFitFilePath() { return fitFilePath; }
+    public void setFitFilePath(String fitFilePath) { this.fitFilePath = fitFilePath; }
+    
+    public String getGpxFilePath() { return gpxFilePath; }
+    public void setGpxFilePath(String gpxFilePath) { this.gpxFilePath = gpxFilePath; }
+    
+    public String getDataHash() { return dataHash; }
+    public void setDataHash(String dataHash) { this.dataHash = dataHash; }
+    
     public SyncStatus getSyncStatus() { return syncStatus; }
     public void setSyncStatus(SyncStatus syncStatus) { this.syncStatus = syncStatus; }
     
+    public String getSyncError() { return syncError; }
+    public void setSyncError(String syncError) { this.syncError = syncError; }
+    
+    public LocalDateTime getLastSyncAttempt() { return lastSyncAttempt; }
+    public void setLastSyncAttempt(LocalDateTime lastSyncAttempt) { this.lastSyncAttempt = lastSyncAttempt; }
+    
+    public int getSyncAttempts() { return syncAttempts; }
+    public void setSyncAttempts(int syncAttempts) { this.syncAttempts = syncAttempts; }
+    
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    
+    public String getGoldenCheetahPath() { return goldenCheetahPath; }
+    public void setGoldenCheetahPath(String goldenCheetahPath) { this.goldenCheetahPath = goldenCheetahPath; }
+    
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
     
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
-    
-    // Add remaining getters/setters for brevity - you can add them as needed
 }
\ No newline at end of file
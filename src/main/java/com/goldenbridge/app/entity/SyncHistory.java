@@ -65,6 +65,21 @@ public class SyncHistory {
     @Column(name = "sync_details", columnDefinition = "TEXT")
     private String syncDetails;
     
+    // Lease columns are written only by SyncHistoryRepository's bulk updates (and the insert),
+    // so saving a stale entity never rolls back a heartbeat
+    @Column(name = "lease_owner", length = 100, updatable = false)
+    private String leaseOwner;
+    
+    @Column(name = "lease_expires_at", updatable = false)
+    private LocalDateTime leaseExpiresAt;
+    
+    @Column(name = "heartbeat_at", updatable = false)
+    private LocalDateTime heartbeatAt;
+    
+    // Set only by SyncHistoryRepository#requestCancellation, for the same reason
+    @Column(name = "cancel_requested_at", insertable = false, updatable = false)
+    private LocalDateTime cancelRequestedAt;
+    
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -125,6 +140,17 @@ public class SyncHistory {
     public String getSyncDetails() { return syncDetails; }
     public void setSyncDetails(String syncDetails) { this.syncDetails = syncDetails; }
     
+    public String getLeaseOwner() { return leaseOwner; }
+    public void setLeaseOwner(String leaseOwner) { this.leaseOwner = leaseOwner; }
+    
+    public LocalDateTime getLeaseExpiresAt() { return leaseExpiresAt; }
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) { this.leaseExpiresAt = leaseExpiresAt; }
+    
+    public LocalDateTime getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+    
+    public LocalDateTime getCancelRequestedAt() { return cancelRequestedAt; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     
     public User getUser() { return user; }
@@ -0,0 +1,12 @@
+package com.goldenbridge.app.exception;
+
+public class GarminBridgeException extends RuntimeException {
+
+    public GarminBridgeException(String message) {
+        super(message);
+    }
+
+    public GarminBridgeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,16 @@
+package com.goldenbridge.app.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown without calling the Python bridge when it is known to be unhealthy (circuit open)
+ * or already saturated (bulkhead full), so the request fails fast with a 503.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class GarminBridgeUnavailableException extends GarminBridgeException {
+
+    public GarminBridgeUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
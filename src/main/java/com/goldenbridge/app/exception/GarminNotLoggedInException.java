@@ -0,0 +1,12 @@
+package com.goldenbridge.app.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.UNAUTHORIZED)
+public class GarminNotLoggedInException extends RuntimeException {
+
+    public GarminNotLoggedInException(String username) {
+        super("No active Garmin session for user " + username + "; log in via /api/auth/garmin/login first");
+    }
+}
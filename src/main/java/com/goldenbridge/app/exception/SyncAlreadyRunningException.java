@@ -0,0 +1,12 @@
+package com.goldenbridge.app.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class SyncAlreadyRunningException extends RuntimeException {
+
+    public SyncAlreadyRunningException(String username) {
+        super("A Garmin sync is already running for user " + username);
+    }
+}
@@ -0,0 +1,17 @@
+package com.goldenbridge.app.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the sync pool's queue has no room for another sync. The Garmin bridge may be
+ * perfectly healthy; this instance simply has enough syncs waiting, so the caller should retry
+ * later.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class SyncQueueFullException extends RuntimeException {
+
+    public SyncQueueFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,22 @@
+package com.goldenbridge.app.repository;
+
+import com.goldenbridge.app.entity.Activity;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk write path for {@link Activity}, mixed into {@link ActivityRepository}.
+ */
+public interface ActivityBulkRepository {
+
+    /**
+     * Inserts {@code activities}, or updates the stored row with the same Garmin id when its
+     * {@code data_hash} differs, in JDBC batches. Updated rows are queued as {@code PENDING} again.
+     * The passed entities are not attached to the persistence context and do not get ids.
+     * <p>
+     * {@code rawPayloads} maps a Garmin activity id to the raw payload to store for it through
+     * {@link ActivityRawPayloadRepository}; activities without an entry keep whatever payload they had.
+     */
+    void upsertAll(List<Activity> activities, Map<String, String> rawPayloads);
+}
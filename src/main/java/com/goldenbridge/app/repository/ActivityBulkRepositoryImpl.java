@@ -0,0 +1,186 @@
+package com.goldenbridge.app.repository;
+
+import com.goldenbridge.app.entity.Activity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ActivityBulkRepository} on plain JDBC batches.
+ * <p>
+ * Each chunk of {@code garmin.ingest.batch-size} rows is one {@code batchUpdate} of
+ * {@code INSERT ... ON CONFLICT (garmin_activity_id, activity_date) DO UPDATE}, which the driver
+ * collapses into multi-row inserts ({@code reWriteBatchedInserts}), so a 500-activity import costs
+ * a handful of round trips instead of 500. The conflict update only fires when {@code data_hash}
+ * changed. The conflict target includes {@code activity_date} because {@code activities} is
+ * partitioned by it; a single array-bound {@code UPDATE} per chunk first moves any stored row
+ * whose start time changed, so an activity still maps to exactly one row. Raw payloads go to
+ * {@link ActivityRawPayloadRepository} in a second batch per chunk, and the conflict update clears
+ * any payload still stored inline.
+ * <p>
+ * {@code activities} has no default partition, so before writing a chunk the monthly partition of
+ * every month it touches is created if missing. {@code ActivityPartitionMaintainer} normally has
+ * them in place already; this covers activities dated beyond its horizon, such as a device with a
+ * wrong clock, which would otherwise fail the whole chunk.
+ * <p>
+ * Ids come from {@code activities_id_seq} in the same blocks of {@link #ID_BLOCK_SIZE} that
+ * Hibernate's pooled optimizer uses for {@link Activity}, so ids handed out here never collide with
+ * ids Hibernate assigns. The statement runs in the caller's transaction when there is one.
+ */
+public class ActivityBulkRepositoryImpl implements ActivityBulkRepository {
+
+    /** Must match the {@code allocationSize} on {@link Activity#getId()} and the sequence increment. */
+    static final int ID_BLOCK_SIZE = 50;
+
+    private static final String NEXT_ID_BLOCKS = "SELECT nextval('activities_id_seq') FROM generate_series(1, ?)";
+
+    private static final String UPSERT = "INSERT INTO activities (id, garmin_activity_id, user_id, activity_name, activity_type, "
+            + "activity_date, duration_seconds, distance_meters, calories, average_heart_rate, max_heart_rate, average_power, "
+            + "max_power, elevation_gain_meters, average_speed_kmh, max_speed_kmh, data_hash, sync_status, "
+            + "sync_attempts, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'PENDING', 0, ?, ?) "
+            + "ON CONFLICT (garmin_activity_id, activity_date) DO UPDATE SET "
+            + "activity_name = EXCLUDED.activity_name, activity_type = EXCLUDED.activity_type, "
+            + "duration_seconds = EXCLUDED.duration_seconds, "
+            + "distance_meters = EXCLUDED.distance_meters, calories = EXCLUDED.calories, "
+            + "average_heart_rate = EXCLUDED.average_heart_rate, max_heart_rate = EXCLUDED.max_heart_rate, "
+            + "average_power = EXCLUDED.average_power, max_power = EXCLUDED.max_power, "
+            + "elevation_gain_meters = EXCLUDED.elevation_gain_meters, average_speed_kmh = EXCLUDED.average_speed_kmh, "
+            + "max_speed_kmh = EXCLUDED.max_speed_kmh, raw_data = NULL, data_hash = EXCLUDED.data_hash, "
+            + "sync_status = 'PENDING', sync_error = NULL, sync_attempts = 0, next_attempt_at = NULL, "
+            + "updated_at = EXCLUDED.updated_at "
+            + "WHERE activities.data_hash IS DISTINCT FROM EXCLUDED.data_hash";
+
+    // Explicit types keep null parameters from being guessed per row, which would break the batch
+    private static final int[] COLUMN_TYPES = {
+            Types.BIGINT, Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.VARCHAR,
+            Types.TIMESTAMP, Types.INTEGER, Types.NUMERIC, Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.INTEGER,
+            Types.INTEGER, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.VARCHAR,
+            Types.TIMESTAMP, Types.TIMESTAMP};
+
+    /** Upper bound of {@code activities_archive}, which holds every month before it (V11 migration). */
+    private static final LocalDate ARCHIVE_END = LocalDate.of(2024, 1, 1);
+
+    private static final String ENSURE_PARTITIONS = "SELECT ensure_activity_partitions(m, m) FROM unnest(?::date[]) AS m";
+
+    // Moves stored rows whose start time Garmin changed into the right partition first, so the
+    // upsert below finds them instead of inserting a second row for the same activity. Matching on
+    // the owner too keeps one user's import from touching another user's rows.
+    private static final String REALIGN_DATES = "UPDATE activities a SET activity_date = v.activity_date "
+            + "FROM unnest(?::bigint[], ?::varchar[], ?::timestamp[]) AS v(user_id, garmin_activity_id, activity_date) "
+            + "WHERE a.user_id = v.user_id AND a.garmin_activity_id = v.garmin_activity_id "
+            + "AND a.activity_date <> v.activity_date";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ActivityRawPayloadRepository rawPayloadRepository;
+    private final int batchSize;
+
+    public ActivityBulkRepositoryImpl(JdbcTemplate jdbcTemplate, ActivityRawPayloadRepository rawPayloadRepository,
+                                      @Value("${garmin.ingest.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rawPayloadRepository = rawPayloadRepository;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void upsertAll(List<Activity> activities, Map<String, String> rawPayloads) {
+        if (activities.isEmpty()) {
+            return;
+        }
+        List<Long> ids = allocateIds(activities.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(activities.size());
+        for (int i = 0; i < activities.size(); i++) {
+            Activity activity = activities.get(i);
+            rows.add(new Object[]{
+                    ids.get(i),
+                    activity.getGarminActivityId(),
+                    activity.getUser().getId(),
+                    activity.getActivityName(),
+                    activity.getActivityType(),
+                    Timestamp.valueOf(activity.getActivityDate()),
+                    activity.getDurationSeconds(),
+                    activity.getDistanceMeters(),
+                    activity.getCalories(),
+                    activity.getAverageHeartRate(),
+                    activity.getMaxHeartRate(),
+                    activity.getAveragePower(),
+                    activity.getMaxPower(),
+                    activity.getElevationGainMeters(),
+                    activity.getAverageSpeedKmh(),
+                    activity.getMaxSpeedKmh(),
+                    activity.getDataHash(),
+                    now,
+                    now});
+        }
+        for (int start = 0; start < rows.size(); start += batchSize) {
+            int end = Math.min(rows.size(), start + batchSize);
+            ensurePartitions(activities.subList(start, end));
+            realignDates(activities.subList(start, end));
+            jdbcTemplate.batchUpdate(UPSERT, rows.subList(start, end), COLUMN_TYPES);
+            rawPayloadRepository.saveAll(activities.subList(start, end), rawPayloads);
+        }
+    }
+
+    private void ensurePartitions(List<Activity> activities) {
+        Date[] months = activities.stream()
+                .map(activity -> YearMonth.from(activity.getActivityDate()).atDay(1))
+                .filter(month -> !month.isBefore(ARCHIVE_END))
+                .distinct()
+                .map(Date::valueOf)
+                .toArray(Date[]::new);
+        if (months.length == 0) {
+            return;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ENSURE_PARTITIONS);
+            statement.setArray(1, connection.createArrayOf("date", months));
+            return statement;
+        }, rs -> { });
+    }
+
+    private void realignDates(List<Activity> activities) {
+        Long[] userIds = new Long[activities.size()];
+        String[] garminIds = new String[activities.size()];
+        Timestamp[] dates = new Timestamp[activities.size()];
+        for (int i = 0; i < activities.size(); i++) {
+            userIds[i] = activities.get(i).getUser().getId();
+            garminIds[i] = activities.get(i).getGarminActivityId();
+            dates[i] = Timestamp.valueOf(activities.get(i).getActivityDate());
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(REALIGN_DATES);
+            statement.setArray(1, connection.createArrayOf("bigint", userIds));
+            statement.setArray(2, connection.createArrayOf("varchar", garminIds));
+            statement.setArray(3, connection.createArrayOf("timestamp", dates));
+            return statement;
+        });
+    }
+
+    /**
+     * Takes whole blocks from the sequence: a value {@code v} owns {@code (v - ID_BLOCK_SIZE, v]},
+     * as it does for Hibernate's pooled optimizer (the very first value, 1, owns only itself).
+     */
+    private List<Long> allocateIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+            for (Long hi : jdbcTemplate.queryForList(NEXT_ID_BLOCKS, Long.class, blocks)) {
+                for (long id = Math.max(1, hi - ID_BLOCK_SIZE + 1); id <= hi && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+}
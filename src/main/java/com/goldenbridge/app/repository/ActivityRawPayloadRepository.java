@@ -0,0 +1,217 @@
+package com.goldenbridge.app.repository;
+
+import com.goldenbridge.app.entity.Activity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Raw Garmin payloads, stored compressed in {@code activity_raw_payloads} instead of inline in
+ * {@code activities}, which keeps the activity partitions and their TOAST small for vacuum and
+ * scans.
+ * <p>
+ * New payloads are written with the configured {@code garmin.raw-payload.codec}; reads decode
+ * whatever codec a row was written with. Activities whose payload is still in the legacy
+ * {@code activities.raw_data} column are read from there until {@link #migrateInlinePayloads}
+ * has moved them.
+ * <p>
+ * The table has no foreign key to {@code activities}, so payloads do not follow their activity
+ * on their own: {@link #archiveForPartition} moves a detached month's payloads next to it, and
+ * {@link #deleteOrphans} removes those of deleted activities.
+ */
+@Repository
+public class ActivityRawPayloadRepository {
+
+    // Resolves the stored id by the activity's natural key, since the upsert keeps the id of an
+    // existing row rather than the one it was handed
+    private static final String UPSERT = "INSERT INTO activity_raw_payloads (activity_id, codec, payload, uncompressed_size, updated_at) "
+            + "SELECT a.id, ?, ?, ?, ? FROM activities a WHERE a.garmin_activity_id = ? AND a.activity_date = ? "
+            + "ON CONFLICT (activity_id) DO UPDATE SET codec = EXCLUDED.codec, payload = EXCLUDED.payload, "
+            + "uncompressed_size = EXCLUDED.uncompressed_size, updated_at = EXCLUDED.updated_at";
+
+    private static final int[] UPSERT_TYPES = {
+            Types.VARCHAR, Types.BINARY, Types.INTEGER, Types.TIMESTAMP, Types.VARCHAR, Types.TIMESTAMP};
+
+    private static final String FIND = "SELECT codec, payload FROM activity_raw_payloads WHERE activity_id = ?";
+
+    private static final String EXISTS = "SELECT EXISTS (SELECT 1 FROM activity_raw_payloads WHERE activity_id = ?) "
+            + "OR EXISTS (SELECT 1 FROM activities WHERE id = ? AND raw_data IS NOT NULL)";
+
+    private static final String FIND_INLINE = "SELECT raw_data FROM activities WHERE id = ? AND raw_data IS NOT NULL";
+
+    private static final String LOCK_INLINE_BATCH = "SELECT id, raw_data FROM activities WHERE id > ? AND raw_data IS NOT NULL "
+            + "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    // A payload written by a sync since the row was locked is newer than the inline one
+    private static final String INSERT_MIGRATED = "INSERT INTO activity_raw_payloads (activity_id, codec, payload, uncompressed_size, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (activity_id) DO NOTHING";
+
+    private static final String CLEAR_INLINE = "UPDATE activities SET raw_data = NULL WHERE id = ANY(?)";
+
+    // Scans the next window of payloads and deletes those whose activity is gone; the scanned
+    // window rather than the deleted rows moves the sweep forward, so it ends even if nothing is deleted
+    private static final String DELETE_ORPHANS = "WITH scanned AS ("
+            + "SELECT activity_id FROM activity_raw_payloads WHERE activity_id > ? ORDER BY activity_id LIMIT ?), "
+            + "deleted AS (DELETE FROM activity_raw_payloads p USING scanned s WHERE p.activity_id = s.activity_id "
+            + "AND NOT EXISTS (SELECT 1 FROM activities a WHERE a.id = p.activity_id) RETURNING p.activity_id) "
+            + "SELECT (SELECT MAX(activity_id) FROM scanned) AS last_id, (SELECT COUNT(*) FROM deleted) AS deleted";
+
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PayloadCodec codec;
+
+    public ActivityRawPayloadRepository(JdbcTemplate jdbcTemplate, @Value("${garmin.raw-payload.codec:GZIP}") PayloadCodec codec) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.codec = codec;
+    }
+
+    /**
+     * Stores the raw payload {@code rawPayloads} holds for each activity, keyed by Garmin activity
+     * id; activities without one are left alone. The activities must already be stored; runs in
+     * the caller's transaction when there is one.
+     */
+    public void saveAll(List<Activity> activities, Map<String, String> rawPayloads) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(activities.size());
+        for (Activity activity : activities) {
+            String rawData = rawPayloads.get(activity.getGarminActivityId());
+            if (rawData == null) {
+                continue;
+            }
+            byte[] payload = rawData.getBytes(StandardCharsets.UTF_8);
+            rows.add(new Object[]{
+                    codec.name(),
+                    codec.encode(payload),
+                    payload.length,
+                    now,
+                    activity.getGarminActivityId(),
+                    Timestamp.valueOf(activity.getActivityDate())});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT, rows, UPSERT_TYPES);
+        }
+    }
+
+    /**
+     * Whether the activity has a raw payload, compressed or still inline.
+     */
+    public boolean hasRawData(Long activityId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(EXISTS, Boolean.class, activityId, activityId));
+    }
+
+    /**
+     * Writes the decoded payload of an activity to {@code out} without materialising it as a
+     * {@code String}.
+     *
+     * @return {@code false} if the activity has no raw payload
+     */
+    public boolean streamRawData(Long activityId, OutputStream out) {
+        Boolean found = jdbcTemplate.query(FIND, rs -> {
+            if (!rs.next()) {
+                return false;
+            }
+            PayloadCodec rowCodec = PayloadCodec.valueOf(rs.getString("codec"));
+            try (InputStream in = rowCodec.decompressing(rs.getBinaryStream("payload"))) {
+                in.transferTo(out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        }, activityId);
+        if (Boolean.TRUE.equals(found)) {
+            return true;
+        }
+        Optional<String> inline = jdbcTemplate.queryForList(FIND_INLINE, String.class, activityId).stream().findFirst();
+        if (inline.isEmpty()) {
+            return false;
+        }
+        try (InputStream in = new ByteArrayInputStream(inline.get().getBytes(StandardCharsets.UTF_8))) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /**
+     * Moves up to {@code limit} inline payloads with an id above {@code afterId} into the side
+     * table and clears them from {@code activities}. Must run in a transaction; rows locked by a
+     * concurrent sync are skipped, as that sync rewrites their payload anyway.
+     *
+     * @return the ids moved, ascending; empty once no inline payload is left above {@code afterId}
+     */
+    public List<Long> migrateInlinePayloads(long afterId, int limit) {
+        List<Object[]> rows = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.query(LOCK_INLINE_BATCH, rs -> {
+            byte[] payload = rs.getString("raw_data").getBytes(StandardCharsets.UTF_8);
+            ids.add(rs.getLong("id"));
+            rows.add(new Object[]{rs.getLong("id"), codec.name(), codec.encode(payload), payload.length, now});
+        }, afterId, limit);
+        if (ids.isEmpty()) {
+            return ids;
+        }
+        jdbcTemplate.batchUpdate(INSERT_MIGRATED, rows,
+                new int[]{Types.BIGINT, Types.VARCHAR, Types.BINARY, Types.INTEGER, Types.TIMESTAMP});
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(CLEAR_INLINE);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        });
+        return ids;
+    }
+
+    /**
+     * Moves the payloads of the activities in the {@code activities_YYYY_MM} table of {@code month}
+     * into {@code activity_raw_payloads_YYYY_MM}, created like this table if missing, so a detached
+     * month keeps its raw data and can be archived or re-attached with it. The move is one
+     * statement, so a payload is never in both tables or in neither.
+     *
+     * @return the number of payloads moved
+     */
+    public int archiveForPartition(YearMonth month) {
+        // Both names are built from the month, never from input, and quoted as identifiers anyway
+        String suffix = month.format(MONTH_SUFFIX);
+        String partition = "\"activities_" + suffix + "\"";
+        String archive = "\"activity_raw_payloads_" + suffix + "\"";
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + archive + " (LIKE activity_raw_payloads INCLUDING ALL)");
+        return jdbcTemplate.update("WITH moved AS (DELETE FROM activity_raw_payloads p USING " + partition + " a "
+                + "WHERE p.activity_id = a.id RETURNING p.*) "
+                + "INSERT INTO " + archive + " SELECT * FROM moved ON CONFLICT (activity_id) DO NOTHING");
+    }
+
+    /**
+     * Looks at up to {@code limit} payloads with an activity id above {@code afterActivityId} and
+     * deletes those whose activity no longer exists, e.g. because its user was deleted.
+     */
+    public OrphanSweep deleteOrphans(long afterActivityId, int limit) {
+        return jdbcTemplate.queryForObject(DELETE_ORPHANS,
+                (rs, rowNum) -> new OrphanSweep(rs.getObject("last_id", Long.class), rs.getInt("deleted")), afterActivityId, limit);
+    }
+
+    /**
+     * One step of {@link #deleteOrphans}: the highest activity id looked at, {@code null} once no
+     * payload is left above the starting id, and how many payloads were deleted.
+     */
+    public record OrphanSweep(Long lastActivityId, int deleted) {
+    }
+}
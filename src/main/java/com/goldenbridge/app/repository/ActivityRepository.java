@@ -1,20 +1,27 @@
 package com.goldenbridge.app.repository;
 
+import com.goldenbridge.app.dto.ActivitySummaryResponse;
 import com.goldenbridge.app.entity.Activity;
 import com.goldenbridge.app.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ActivityRepository extends JpaRepository<Activity, Long> {
+public interface ActivityRepository extends JpaRepository<Activity, Long>, ActivityBulkRepository {
+    
+    String SUMMARY = "SELECT new com.goldenbridge.app.dto.ActivitySummaryResponse(a.id, a.garminActivityId, a.activityName, "
+            + "a.activityType, a.activityDate, a.durationSeconds, a.distanceMeters, a.calories, a.averageHeartRate, "
+            + "a.averagePower, a.elevationGainMeters, a.syncStatus) FROM Activity a ";
     
     Optional<Activity> findByGarminActivityId(String garminActivityId);
     
@@ -22,15 +29,48 @@ public interface ActivityRepository extends JpaRepository<Activity, Long> {
     
     Page<Activity> findByUser(User user, Pageable pageable);
     
+    /**
+     * First keyset page of a user's activities, newest first. Pass {@code limit + 1} to learn
+     * whether a next page exists without a COUNT query.
+     */
+    @Query(SUMMARY + "WHERE a.user = :user ORDER BY a.activityDate DESC, a.id DESC")
+    List<ActivitySummaryResponse> findFirstPageByUser(@Param("user") User user, Pageable pageable);
+    
+    /**
+     * Keyset page of a user's activities strictly after {@code (activityDate, id)}. The bound on
+     * {@code activity_date} seeks into {@code idx_activities_user_date} and prunes later partitions,
+     * so any page costs the same as the first.
+     */
+    @Query(SUMMARY + "WHERE a.user = :user AND a.activityDate <= :activityDate "
+            + "AND (a.activityDate < :activityDate OR a.id < :id) ORDER BY a.activityDate DESC, a.id DESC")
+    List<ActivitySummaryResponse> findPageByUserAfter(@Param("user") User user, @Param("activityDate") LocalDateTime activityDate,
+                                                      @Param("id") Long id, Pageable pageable);
+    
     List<Activity> findByUserAndSyncStatus(User user, Activity.SyncStatus syncStatus);
     
+    Optional<Activity> findFirstByUserOrderByActivityDateDesc(User user);
+    
     List<Activity> findByUserAndActivityDateBetween(User user, LocalDateTime startDate, LocalDateTime endDate);
     
-    @Query("SELECT a FROM Activity a WHERE a.user = :user AND a.activityDate >= :fromDate ORDER BY a.activityDate DESC")
-    List<Activity> findRecentActivitiesByUser(@Param("user") User user, @Param("fromDate") LocalDateTime fromDate);
+    @Query(SUMMARY + "WHERE a.user = :user AND a.activityDate BETWEEN :startDate AND :endDate ORDER BY a.activityDate DESC")
+    List<ActivitySummaryResponse> findSummariesByUserAndActivityDateBetween(@Param("user") User user,
+                                                                            @Param("startDate") LocalDateTime startDate,
+                                                                            @Param("endDate") LocalDateTime endDate);
     
-    @Query("SELECT a FROM Activity a WHERE a.syncStatus = :status AND a.lastSyncAttempt < :cutoffTime")
-    List<Activity> findActivitiesForRetry(@Param("status") Activity.SyncStatus status, @Param("cutoffTime") LocalDateTime cutoffTime);
+    @Query(SUMMARY + "WHERE a.user = :user AND a.activityDate >= :fromDate ORDER BY a.activityDate DESC")
+    List<ActivitySummaryResponse> findRecentActivitiesByUser(@Param("user") User user, @Param("fromDate") LocalDateTime fromDate);
+    
+    /**
+     * Locks up to {@code limit} FAILED rows whose backoff has elapsed, oldest due first, skipping
+     * rows another transaction has locked.
+     */
+    @Query(value = "SELECT * FROM activities WHERE sync_status = 'FAILED' AND next_attempt_at <= :now "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Activity> lockDueRetries(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE Activity a SET a.syncStatus = 'PENDING', a.nextAttemptAt = NULL WHERE a.id IN :ids")
+    int requeueForRetry(@Param("ids") Collection<Long> ids);
     
     @Query("SELECT COUNT(a) FROM Activity a WHERE a.user = :user AND a.syncStatus = :status")
     Long countByUserAndSyncStatus(@Param("user") User user, @Param("status") Activity.SyncStatus status);
@@ -40,6 +80,53 @@ public interface ActivityRepository extends JpaRepository<Activity, Long> {
     
     boolean existsByGarminActivityId(String garminActivityId);
     
+    boolean existsByIdAndUser(Long id, User user);
+    
+    @Query("SELECT a.garminActivityId FROM Activity a WHERE a.user = :user")
+    List<String> findGarminActivityIdsByUser(@Param("user") User user);
+    
+    /**
+     * {@code [garminActivityId, dataHash]} of the user's stored activities among
+     * {@code garminActivityIds} that start within {@code [from, to]}. The date bounds keep the
+     * lookup to the months they cover; an activity whose start time moved out of them is not
+     * found and gets rewritten, which moves it to its new date.
+     */
+    @Query("SELECT a.garminActivityId, a.dataHash FROM Activity a WHERE a.user = :user "
+            + "AND a.garminActivityId IN :garminActivityIds AND a.activityDate BETWEEN :from AND :to")
+    List<Object[]> findDataHashes(@Param("user") User user, @Param("garminActivityIds") Collection<String> garminActivityIds,
+                                  @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    List<Activity> findByGarminActivityIdIn(Collection<String> garminActivityIds);
+    
     @Query("SELECT a FROM Activity a WHERE a.user = :user AND a.syncStatus = 'PENDING' ORDER BY a.activityDate ASC")
     List<Activity> findPendingSyncActivitiesByUser(@Param("user") User user, Pageable pageable);
+    
+    /**
+     * Locks up to {@code limit} PENDING rows for the calling transaction, skipping rows another
+     * transaction has locked, so concurrent workers never claim the same activity.
+     */
+    @Query(value = "SELECT * FROM activities WHERE sync_status = 'PENDING' "
+            + "ORDER BY last_sync_attempt NULLS FIRST, activity_date LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Activity> lockPendingBatch(@Param("limit") int limit);
+    
+    @Modifying
+    @Query("UPDATE Activity a SET a.syncStatus = :status, a.lastSyncAttempt = :now WHERE a.id IN :ids")
+    int updateSyncStatus(@Param("ids") Collection<Long> ids, @Param("status") Activity.SyncStatus status, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Activity a SET a.syncStatus = 'COMPLETED', a.detailData = :detailData, a.syncError = NULL, a.nextAttemptAt = NULL, a.updatedAt = :now WHERE a.id = :id")
+    int completeSync(@Param("id") Long id, @Param("detailData") String detailData, @Param("now") LocalDateTime now);
+    
+    /**
+     * Marks an attempt as failed; a {@code null} {@code nextAttemptAt} means the activity is not retried.
+     */
+    @Modifying
+    @Query("UPDATE Activity a SET a.syncStatus = 'FAILED', a.syncError = :error, a.syncAttempts = :attempts, "
+            + "a.nextAttemptAt = :nextAttemptAt, a.updatedAt = :now WHERE a.id = :id")
+    int failSync(@Param("id") Long id, @Param("error") String error, @Param("attempts") int attempts,
+                 @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Activity a SET a.syncStatus = 'PENDING' WHERE a.syncStatus = 'IN_PROGRESS' AND a.lastSyncAttempt < :cutoffTime")
+    int releaseStaleClaims(@Param("cutoffTime") LocalDateTime cutoffTime);
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.goldenbridge.app.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression of stored raw payloads. Each row records the codec it was written with, so changing
+ * {@code garmin.raw-payload.codec} only affects new writes and older rows stay readable.
+ */
+public enum PayloadCodec {
+    NONE {
+        @Override
+        OutputStream compressing(OutputStream out) {
+            return out;
+        }
+
+        @Override
+        public InputStream decompressing(InputStream in) {
+            return in;
+        }
+    },
+    GZIP {
+        @Override
+        OutputStream compressing(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out);
+        }
+
+        @Override
+        public InputStream decompressing(InputStream in) throws IOException {
+            return new GZIPInputStream(in);
+        }
+    },
+    DEFLATE {
+        @Override
+        OutputStream compressing(OutputStream out) {
+            return new DeflaterOutputStream(out);
+        }
+
+        @Override
+        public InputStream decompressing(InputStream in) {
+            return new InflaterInputStream(in);
+        }
+    };
+
+    abstract OutputStream compressing(OutputStream out) throws IOException;
+
+    /**
+     * Wraps {@code in} so reading it yields the original payload bytes.
+     */
+    public abstract InputStream decompressing(InputStream in) throws IOException;
+
+    public byte[] encode(byte[] payload) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(this == NONE ? payload.length : payload.length / 4);
+        try (OutputStream out = compressing(buffer)) {
+            out.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    public byte[] decode(byte[] stored) {
+        try (InputStream in = decompressing(new ByteArrayInputStream(stored))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
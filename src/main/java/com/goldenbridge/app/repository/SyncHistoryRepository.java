@@ -5,11 +5,13 @@ import com.goldenbridge.app.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,10 +22,28 @@ public interface SyncHistoryRepository extends JpaRepository<SyncHistory, Long>
     
     Page<SyncHistory> findByUser(User user, Pageable pageable);
     
+    /**
+     * First keyset page of a user's sync runs, newest first. Pass {@code limit + 1} to learn
+     * whether a next page exists without a COUNT query.
+     */
+    @Query("SELECT sh FROM SyncHistory sh WHERE sh.user = :user ORDER BY sh.syncStartedAt DESC, sh.id DESC")
+    List<SyncHistory> findFirstPageByUser(@Param("user") User user, Pageable pageable);
+    
+    /**
+     * Keyset page of a user's sync runs strictly after {@code (syncStartedAt, id)}, seeking into
+     * {@code idx_sync_history_user_date}.
+     */
+    @Query("SELECT sh FROM SyncHistory sh WHERE sh.user = :user AND sh.syncStartedAt <= :syncStartedAt "
+            + "AND (sh.syncStartedAt < :syncStartedAt OR sh.id < :id) ORDER BY sh.syncStartedAt DESC, sh.id DESC")
+    List<SyncHistory> findPageByUserAfter(@Param("user") User user, @Param("syncStartedAt") LocalDateTime syncStartedAt,
+                                          @Param("id") Long id, Pageable pageable);
+    
     List<SyncHistory> findByUserOrderBySyncStartedAtDesc(User user);
     
     Optional<SyncHistory> findFirstByUserOrderBySyncStartedAtDesc(User user);
     
+    Optional<SyncHistory> findByIdAndUser(Long id, User user);
+    
     List<SyncHistory> findBySyncStatus(SyncHistory.SyncStatus syncStatus);
     
     @Query("SELECT sh FROM SyncHistory sh WHERE sh.user = :user AND sh.syncStartedAt >= :fromDate ORDER BY sh.syncStartedAt DESC")
@@ -35,6 +55,47 @@ public interface SyncHistoryRepository extends JpaRepository<SyncHistory, Long>
     @Query("SELECT sh.syncStatus, COUNT(sh) FROM SyncHistory sh WHERE sh.user = :user GROUP BY sh.syncStatus")
     List<Object[]> getSyncStatusStatsByUser(@Param("user") User user);
     
-    @Query("SELECT sh FROM SyncHistory sh WHERE sh.syncStatus IN ('STARTED', 'IN_PROGRESS') AND sh.syncStartedAt < :cutoffTime")
-    List<SyncHistory> findStuckSyncs(@Param("cutoffTime") LocalDateTime cutoffTime);
-}
\ No newline at end of file
+    @Query("SELECT sh.user.id, MAX(sh.syncStartedAt) FROM SyncHistory sh GROUP BY sh.user.id")
+    List<Object[]> findLatestSyncStartPerUser();
+    
+    /**
+     * Unfinished runs whose owner stopped renewing its lease. Rows without a lease predate
+     * leasing and count as expired.
+     */
+    @Query("SELECT sh FROM SyncHistory sh JOIN FETCH sh.user WHERE sh.syncStatus IN ('STARTED', 'IN_PROGRESS') "
+            + "AND (sh.leaseExpiresAt IS NULL OR sh.leaseExpiresAt < :now)")
+    List<SyncHistory> findRunsWithExpiredLease(@Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE SyncHistory sh SET sh.leaseExpiresAt = :expiresAt, sh.heartbeatAt = :now WHERE sh.id = :id AND sh.leaseOwner = :owner")
+    int renewLease(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+                   @Param("expiresAt") LocalDateTime expiresAt);
+    
+    /**
+     * Compare-and-set takeover of an expired lease: exactly one contender sees {@code 1}.
+     */
+    @Modifying
+    @Query("UPDATE SyncHistory sh SET sh.leaseOwner = :owner, sh.leaseExpiresAt = :expiresAt, sh.heartbeatAt = :now "
+            + "WHERE sh.id = :id AND sh.syncStatus IN ('STARTED', 'IN_PROGRESS') "
+            + "AND (sh.leaseExpiresAt IS NULL OR sh.leaseExpiresAt < :now)")
+    int takeOverExpiredLease(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+                             @Param("expiresAt") LocalDateTime expiresAt);
+    
+    /**
+     * Flags an unfinished run for cancellation; the instance running it stops at its next checkpoint.
+     */
+    @Modifying
+    @Query("UPDATE SyncHistory sh SET sh.cancelRequestedAt = :now WHERE sh.id = :id "
+            + "AND sh.syncStatus IN ('STARTED', 'IN_PROGRESS') AND sh.cancelRequestedAt IS NULL")
+    int requestCancellation(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT sh.id FROM SyncHistory sh WHERE sh.id IN :ids AND sh.cancelRequestedAt IS NOT NULL")
+    List<Long> findCancellationRequested(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Unfinished runs of the given users, as {@code [username, id, cancelRequestedAt]} rows.
+     */
+    @Query("SELECT u.username, sh.id, sh.cancelRequestedAt FROM SyncHistory sh JOIN sh.user u "
+            + "WHERE u.username IN :usernames AND sh.syncStatus IN ('STARTED', 'IN_PROGRESS')")
+    List<Object[]> findUnfinishedRunsByUsernames(@Param("usernames") Collection<String> usernames);
+}
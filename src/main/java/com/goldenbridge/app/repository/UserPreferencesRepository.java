@@ -18,7 +18,7 @@ public interface UserPreferencesRepository extends JpaRepository<UserPreferences
     
     List<UserPreferences> findByAutoSyncEnabledTrue();
     
-    @Query("SELECT up FROM UserPreferences up WHERE up.autoSyncEnabled = true AND up.user.isActive = true AND up.user.syncEnabled = true")
+    @Query("SELECT up FROM UserPreferences up JOIN FETCH up.user u WHERE up.autoSyncEnabled = true AND u.isActive = true AND u.syncEnabled = true")
     List<UserPreferences> findActiveAutoSyncPreferences();
     
     @Query("SELECT COUNT(up) FROM UserPreferences up WHERE up.autoSyncEnabled = true")
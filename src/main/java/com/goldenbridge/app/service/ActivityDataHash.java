@@ -0,0 +1,77 @@
+package com.goldenbridge.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SHA-256 of an activity's raw Garmin payload in a canonical form, stored in {@code activities.data_hash}.
+ * <p>
+ * Object keys are written in sorted order and numbers in their shortest exact form
+ * ({@code 1.50} and {@code 1.5} hash the same), so two fetches of an unchanged activity always
+ * produce the same 64-character hex digest however the bridge happened to serialise them.
+ */
+final class ActivityDataHash {
+
+    private ActivityDataHash() {
+    }
+
+    static String of(JsonNode raw) {
+        StringBuilder canonical = new StringBuilder();
+        if (raw != null) {
+            appendCanonical(raw, canonical);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void appendCanonical(JsonNode node, StringBuilder out) {
+        if (node.isObject()) {
+            List<Map.Entry<String, JsonNode>> fields = new ArrayList<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                fields.add(it.next());
+            }
+            fields.sort(Map.Entry.comparingByKey());
+            out.append('{');
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendString(fields.get(i).getKey(), out);
+                out.append(':');
+                appendCanonical(fields.get(i).getValue(), out);
+            }
+            out.append('}');
+        } else if (node.isArray()) {
+            out.append('[');
+            for (int i = 0; i < node.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendCanonical(node.get(i), out);
+            }
+            out.append(']');
+        } else if (node.isNumber()) {
+            out.append(node.decimalValue().stripTrailingZeros().toPlainString());
+        } else if (node.isTextual()) {
+            appendString(node.textValue(), out);
+        } else {
+            out.append(node.toString());
+        }
+    }
+
+    private static void appendString(String value, StringBuilder out) {
+        out.append('"').append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+    }
+}
@@ -0,0 +1,158 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.repository.ActivityRawPayloadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the monthly partitions of {@code activities} ahead of the calendar.
+ * <p>
+ * At startup and then daily, the partitions for the current month and the next
+ * {@code garmin.activity-partitions.months-ahead} months are created if missing, through the
+ * {@code ensure_activity_partitions} function from the V11 migration. Creating them well ahead
+ * means an insert never waits on DDL and a missed run or two is harmless.
+ * <p>
+ * With {@code retention-months} set, monthly partitions that ended more than that many months ago
+ * are detached with {@code DETACH PARTITION ... CONCURRENTLY}, which does not block reads or writes
+ * on the other months. Detached months stay in the database as plain tables, to be archived or
+ * dropped separately. Their compressed raw payloads move with them into a matching
+ * {@code activity_raw_payloads_YYYY_MM} table, see {@link ActivityRawPayloadRepository#archiveForPartition}.
+ * <p>
+ * Each run also sweeps {@code activity_raw_payloads} for payloads whose activity is gone, such as
+ * those of deleted users, as that table has no foreign key to cascade from.
+ */
+@Component
+public class ActivityPartitionMaintainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityPartitionMaintainer.class);
+
+    static final String PARTITION_PREFIX = "activities_";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private static final String ENSURE_PARTITIONS = "SELECT ensure_activity_partitions(?, ?)";
+
+    private static final String LIST_PARTITIONS = "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+            + "WHERE i.inhparent = 'activities'::regclass";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ActivityRawPayloadRepository rawPayloads;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final int orphanSweepBatchSize;
+    private final Clock clock;
+
+    public ActivityPartitionMaintainer(JdbcTemplate jdbcTemplate, ActivityRawPayloadRepository rawPayloads,
+                                       @Value("${garmin.activity-partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${garmin.activity-partitions.retention-months:0}") int retentionMonths,
+                                       @Value("${garmin.raw-payload.orphan-sweep-batch-size:1000}") int orphanSweepBatchSize) {
+        this(jdbcTemplate, rawPayloads, monthsAhead, retentionMonths, orphanSweepBatchSize, Clock.systemDefaultZone());
+    }
+
+    ActivityPartitionMaintainer(JdbcTemplate jdbcTemplate, ActivityRawPayloadRepository rawPayloads, int monthsAhead,
+                                int retentionMonths, int orphanSweepBatchSize, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rawPayloads = rawPayloads;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.orphanSweepBatchSize = orphanSweepBatchSize;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${garmin.activity-partitions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        try {
+            createUpcomingPartitions();
+            if (retentionMonths > 0) {
+                detachExpiredPartitions();
+            }
+            deleteOrphanedPayloads();
+        } catch (DataAccessException e) {
+            logger.error("Activity partition maintenance failed", e);
+        }
+    }
+
+    int createUpcomingPartitions() {
+        YearMonth current = YearMonth.now(clock);
+        Integer created = jdbcTemplate.queryForObject(ENSURE_PARTITIONS, Integer.class,
+                Date.valueOf(current.atDay(1)), Date.valueOf(current.plusMonths(monthsAhead).atDay(1)));
+        if (created != null && created > 0) {
+            logger.info("Created {} activity partitions through {}", created, current.plusMonths(monthsAhead));
+        }
+        return created == null ? 0 : created;
+    }
+
+    List<String> detachExpiredPartitions() {
+        // A partition for month m holds [m, m + 1); it has expired once m + 1 is retentionMonths behind
+        LocalDate cutoff = YearMonth.now(clock).minusMonths(retentionMonths).atDay(1);
+        List<String> expired = jdbcTemplate.queryForList(LIST_PARTITIONS, String.class).stream()
+                .filter(name -> partitionMonth(name).map(month -> !month.plusMonths(1).atDay(1).isAfter(cutoff)).orElse(false))
+                .sorted()
+                .toList();
+        for (String partition : expired) {
+            // CONCURRENTLY cannot run in a transaction block: JdbcTemplate runs it in autocommit
+            jdbcTemplate.execute("ALTER TABLE activities DETACH PARTITION " + partition + " CONCURRENTLY");
+            // After the detach, so a payload written for the month meanwhile is not left behind
+            int moved = rawPayloads.archiveForPartition(partitionMonth(partition).orElseThrow());
+            logger.info("Detached activity partition {} and moved {} raw payloads with it", partition, moved);
+        }
+        return expired;
+    }
+
+    /**
+     * Walks {@code activity_raw_payloads} in batches of {@code orphan-sweep-batch-size}, each
+     * in its own short statement, deleting payloads whose activity no longer exists.
+     *
+     * @return the number of payloads deleted
+     */
+    int deleteOrphanedPayloads() {
+        long afterId = 0;
+        int deleted = 0;
+        while (true) {
+            ActivityRawPayloadRepository.OrphanSweep sweep = rawPayloads.deleteOrphans(afterId, orphanSweepBatchSize);
+            if (sweep == null || sweep.lastActivityId() == null) {
+                break;
+            }
+            deleted += sweep.deleted();
+            afterId = sweep.lastActivityId();
+        }
+        if (deleted > 0) {
+            logger.info("Deleted {} raw payloads whose activity no longer exists", deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * The month a partition named {@code activities_YYYY_MM} covers; empty for any other partition.
+     */
+    static Optional<YearMonth> partitionMonth(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(YearMonth.parse(partitionName.substring(PARTITION_PREFIX.length()), PARTITION_MONTH));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
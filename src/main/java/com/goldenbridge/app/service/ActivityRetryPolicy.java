@@ -0,0 +1,63 @@
+package com.goldenbridge.app.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Exponential backoff with jitter for activities whose sync attempt failed.
+ * <p>
+ * The n-th failure waits somewhere between half and all of {@code base-delay * 2^(n-1)}, capped
+ * at {@code max-delay}. The random half spreads the activities that failed together during a
+ * Garmin outage over the whole window, so they come back as a steady trickle rather than all at
+ * once. After {@code max-attempts} failures an activity stays FAILED for good.
+ */
+@Component
+public class ActivityRetryPolicy {
+
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final int maxAttempts;
+    private final DoubleSupplier random;
+
+    @Autowired
+    public ActivityRetryPolicy(@Value("${garmin.activity-retry.base-delay:1m}") Duration baseDelay,
+                               @Value("${garmin.activity-retry.max-delay:6h}") Duration maxDelay,
+                               @Value("${garmin.activity-retry.max-attempts:8}") int maxAttempts) {
+        this(baseDelay, maxDelay, maxAttempts, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    ActivityRetryPolicy(Duration baseDelay, Duration maxDelay, int maxAttempts, DoubleSupplier random) {
+        if (baseDelay.isNegative() || baseDelay.isZero() || maxDelay.compareTo(baseDelay) < 0) {
+            throw new IllegalArgumentException("garmin.activity-retry delays must be positive and max-delay >= base-delay");
+        }
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.maxAttempts = maxAttempts;
+        this.random = random;
+    }
+
+    /**
+     * When to try again after the given number of failed attempts, or empty once retries are exhausted.
+     */
+    public Optional<LocalDateTime> nextAttemptAt(int failedAttempts, LocalDateTime now) {
+        if (failedAttempts >= maxAttempts) {
+            return Optional.empty();
+        }
+        return Optional.of(now.plus(delay(failedAttempts)));
+    }
+
+    Duration delay(int failedAttempts) {
+        // Beyond 2^30 the cap has long since applied; avoids overflowing the shift
+        int exponent = Math.min(Math.max(failedAttempts - 1, 0), 30);
+        long ceilingMillis = Math.min(maxDelay.toMillis(), baseDelay.toMillis() * (1L << exponent));
+        long half = ceilingMillis / 2;
+        return Duration.ofMillis(half + (long) (random.getAsDouble() * (ceilingMillis - half)));
+    }
+}
@@ -0,0 +1,55 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.entity.Activity;
+import com.goldenbridge.app.repository.ActivityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Puts FAILED activities whose backoff has elapsed back on the PENDING queue drained by
+ * {@link PendingActivityWorker}.
+ * <p>
+ * Each run claims at most {@code garmin.activity-retry.batch-size} due rows with
+ * {@code FOR UPDATE SKIP LOCKED}, so retries re-enter the queue at a bounded rate and several
+ * instances can run the scheduler without requeueing the same row twice.
+ */
+@Service
+public class ActivityRetryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityRetryScheduler.class);
+
+    private final ActivityRepository activityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ActivityRetryScheduler(ActivityRepository activityRepository, PlatformTransactionManager transactionManager,
+                                  @Value("${garmin.activity-retry.batch-size:100}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("garmin.activity-retry.batch-size must be at least 1");
+        }
+        this.activityRepository = activityRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${garmin.activity-retry.poll-interval:30s}", initialDelayString = "${garmin.activity-queue.initial-delay:30s}")
+    public void requeueDueRetries() {
+        Integer requeued = transactionTemplate.execute(status -> {
+            List<Long> due = activityRepository.lockDueRetries(LocalDateTime.now(), batchSize).stream()
+                    .map(Activity::getId)
+                    .toList();
+            return due.isEmpty() ? 0 : activityRepository.requeueForRetry(due);
+        });
+        if (requeued != null && requeued > 0) {
+            logger.info("Requeued {} failed activities for retry", requeued);
+        }
+    }
+}
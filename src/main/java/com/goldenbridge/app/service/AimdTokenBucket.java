@@ -0,0 +1,101 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.config.GarminRateLimitProperties;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory {@link RateBucket}.
+ * <p>
+ * The rate recovers linearly towards {@code maxRate} while no throttling is seen, reaching it
+ * {@code recoveryTime} after hitting {@code minRate}. Throttle signals arriving within
+ * {@link #DECREASE_COOLDOWN} of the last cut are ignored, since a burst of 429s from calls that
+ * were already in flight reports a single overload, not several.
+ */
+public final class AimdTokenBucket implements RateBucket {
+
+    static final Duration DECREASE_COOLDOWN = Duration.ofSeconds(1);
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double maxRate;
+    private final double minRate;
+    private final double burst;
+    private final double decreaseFactor;
+    private final double recoveryPerSecond;
+    private final LongSupplier nanoClock;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+    private long lastDecreaseNanos;
+    private boolean decreased;
+
+    public AimdTokenBucket(GarminRateLimitProperties.Bucket limits, double decreaseFactor, Duration recoveryTime) {
+        this(limits, decreaseFactor, recoveryTime, System::nanoTime);
+    }
+
+    AimdTokenBucket(GarminRateLimitProperties.Bucket limits, double decreaseFactor, Duration recoveryTime, LongSupplier nanoClock) {
+        if (limits.getMinRate() <= 0 || limits.getMaxRate() < limits.getMinRate() || limits.getBurst() < 1) {
+            throw new IllegalArgumentException("Rate limits need 0 < min-rate <= max-rate and burst >= 1");
+        }
+        if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+            throw new IllegalArgumentException("garmin.rate-limit.decrease-factor must be between 0 and 1");
+        }
+        this.maxRate = limits.getMaxRate();
+        this.minRate = limits.getMinRate();
+        this.burst = limits.getBurst();
+        this.decreaseFactor = decreaseFactor;
+        this.recoveryPerSecond = (maxRate - minRate) / Math.max(recoveryTime.toMillis() / 1000d, 0.001);
+        this.nanoClock = nanoClock;
+        this.rate = maxRate;
+        this.tokens = burst;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    @Override
+    public synchronized Duration reserve() {
+        refill();
+        tokens -= 1;
+        if (tokens >= 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos((long) (-tokens / rate * NANOS_PER_SECOND));
+    }
+
+    @Override
+    public synchronized void refund() {
+        tokens = Math.min(burst, tokens + 1);
+    }
+
+    @Override
+    public synchronized void throttled() {
+        refill();
+        long now = lastRefillNanos;
+        if (decreased && now - lastDecreaseNanos < DECREASE_COOLDOWN.toNanos()) {
+            return;
+        }
+        rate = Math.max(minRate, rate * decreaseFactor);
+        tokens = Math.min(tokens, 0);
+        lastDecreaseNanos = now;
+        decreased = true;
+    }
+
+    @Override
+    public synchronized double rate() {
+        refill();
+        return rate;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        double seconds = (now - lastRefillNanos) / NANOS_PER_SECOND;
+        if (seconds <= 0) {
+            return;
+        }
+        tokens = Math.min(burst, tokens + rate * seconds);
+        rate = Math.min(maxRate, rate + recoveryPerSecond * seconds);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,70 @@
+package com.goldenbridge.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of raw {@code /garmin/activities} pages, keyed by user and {@code (start, limit)}.
+ * <p>
+ * Entries expire after {@code garmin.activity-cache.ttl} and the cache is bounded by the total
+ * payload size ({@code garmin.activity-cache.max-size}) rather than by entry count, since one page
+ * of 100 activities weighs far more than a page of 10. Hit, miss and eviction counts are published
+ * as {@code cache.*} metrics tagged {@code cache=garmin.activities}.
+ */
+@Component
+public class GarminActivityCache {
+
+    private final Cache<Key, String> cache;
+
+    public GarminActivityCache(@Value("${garmin.activity-cache.ttl:60s}") Duration ttl,
+                               @Value("${garmin.activity-cache.max-size:32MB}") DataSize maxSize,
+                               MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxSize.toBytes())
+                .weigher(GarminActivityCache::weigh)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "garmin.activities");
+    }
+
+    /**
+     * Returns the cached page for {@code username}, calling {@code loader} on a miss. A load that
+     * throws or returns {@code null} is not cached; an empty page ({@code []}) is cached like any
+     * other, so paging past the end does not reach the bridge again within the TTL.
+     */
+    public String get(String username, int start, int limit, Supplier<String> loader) {
+        return cache.get(new Key(username, start, limit), key -> loader.get());
+    }
+
+    public void invalidateUser(String username) {
+        cache.asMap().keySet().removeIf(key -> key.username().equals(username));
+    }
+
+    @EventListener
+    public void onSyncCompleted(GarminSyncCompletedEvent event) {
+        invalidateUser(event.username());
+    }
+
+    long estimatedSize() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    // Activity JSON is almost entirely ASCII, so one char is a good estimate of one byte.
+    private static int weigh(Key key, String payload) {
+        return key.username().length() + payload.length();
+    }
+
+    private record Key(String username, int start, int limit) {
+    }
+}
@@ -0,0 +1,153 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.dto.GarminActivityDetailResult;
+import com.goldenbridge.app.exception.GarminBridgeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Fetches {@code /garmin/activity_detail/<id>} for many activities at once.
+ * <p>
+ * At most {@code garmin.detail-fetch.parallelism} requests are in flight. A new request is
+ * issued as soon as one completes, before its result is handed to the caller, so the bridge
+ * stays busy while the caller processes results. Each activity succeeds or fails on its own:
+ * a failure is reported as a {@link GarminActivityDetailResult} and never aborts the batch.
+ * A caller can also pass a stop check, consulted before each request is issued; once it fires no
+ * further request is issued and only the ones already in flight are delivered.
+ */
+@Service
+public class GarminActivityDetailFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(GarminActivityDetailFetcher.class);
+
+    private final GarminIntegrationService garminIntegrationService;
+    private final AsyncTaskExecutor garminBridgeExecutor;
+    private final int parallelism;
+
+    public GarminActivityDetailFetcher(GarminIntegrationService garminIntegrationService,
+                                       @Qualifier("garminBridgeExecutor") AsyncTaskExecutor garminBridgeExecutor,
+                                       @Value("${garmin.detail-fetch.parallelism:4}") int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("garmin.detail-fetch.parallelism must be at least 1");
+        }
+        this.garminIntegrationService = garminIntegrationService;
+        this.garminBridgeExecutor = garminBridgeExecutor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Fetches details for every id within the given Garmin session and passes each result to
+     * {@code onResult} on the calling thread, in completion order.
+     *
+     * @return the number of results delivered
+     */
+    public int fetchDetails(String sessionHandle, Collection<Long> activityIds, Consumer<GarminActivityDetailResult> onResult) {
+        return fetchDetails(sessionHandle, activityIds, () -> false, onResult);
+    }
+
+    /**
+     * Like {@link #fetchDetails(String, Collection, Consumer)}, but issues no further request once
+     * {@code stopRequested} returns {@code true}. Ids not yet requested by then get no result.
+     *
+     * @return the number of results delivered
+     */
+    public int fetchDetails(String sessionHandle, Collection<Long> activityIds, BooleanSupplier stopRequested,
+                            Consumer<GarminActivityDetailResult> onResult) {
+        Window window = new Window(sessionHandle, activityIds.iterator(), stopRequested, onResult);
+        try {
+            window.fill();
+            while (window.inFlight > 0) {
+                GarminActivityDetailResult result = window.takeCompleted();
+                window.fill();
+                window.deliver(result);
+            }
+            return window.delivered;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            window.cancelAll();
+            throw new GarminBridgeException("Interrupted while fetching activity details", e);
+        } catch (ExecutionException e) {
+            // fetchOne never throws, so this only happens if the task itself could not run
+            window.cancelAll();
+            throw new GarminBridgeException("Activity detail fetch failed unexpectedly", e.getCause());
+        }
+    }
+
+    private GarminActivityDetailResult fetchOne(String sessionHandle, long activityId) {
+        try {
+            return GarminActivityDetailResult.success(activityId, garminIntegrationService.getGarminActivityDetail(sessionHandle, activityId));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to fetch details for Garmin activity {}: {}", activityId, e.getMessage());
+            return GarminActivityDetailResult.failure(activityId, e.getMessage());
+        }
+    }
+
+    /**
+     * Book-keeping for one {@link #fetchDetails} call: the ids still to submit and the
+     * requests currently in flight. Completed futures are dropped as soon as they are taken
+     * so a large batch does not retain every detail payload.
+     */
+    private class Window {
+
+        private final CompletionService<GarminActivityDetailResult> completion = new ExecutorCompletionService<>(garminBridgeExecutor);
+        private final Set<Future<GarminActivityDetailResult>> submitted = new HashSet<>();
+        private final String sessionHandle;
+        private final Iterator<Long> pending;
+        private final BooleanSupplier stopRequested;
+        private final Consumer<GarminActivityDetailResult> onResult;
+        private int inFlight;
+        private int delivered;
+
+        private Window(String sessionHandle, Iterator<Long> pending, BooleanSupplier stopRequested,
+                       Consumer<GarminActivityDetailResult> onResult) {
+            this.sessionHandle = sessionHandle;
+            this.pending = pending;
+            this.stopRequested = stopRequested;
+            this.onResult = onResult;
+        }
+
+        private void fill() {
+            while (inFlight < parallelism && pending.hasNext() && !stopRequested.getAsBoolean()) {
+                long activityId = pending.next();
+                try {
+                    submitted.add(completion.submit(() -> fetchOne(sessionHandle, activityId)));
+                    inFlight++;
+                } catch (TaskRejectedException e) {
+                    deliver(GarminActivityDetailResult.failure(activityId, "Bridge executor saturated: " + e.getMessage()));
+                }
+            }
+        }
+
+        private GarminActivityDetailResult takeCompleted() throws InterruptedException, ExecutionException {
+            Future<GarminActivityDetailResult> completed = completion.take();
+            submitted.remove(completed);
+            inFlight--;
+            return completed.get();
+        }
+
+        private void deliver(GarminActivityDetailResult result) {
+            onResult.accept(result);
+            delivered++;
+        }
+
+        private void cancelAll() {
+            submitted.forEach(future -> future.cancel(true));
+        }
+    }
+}
@@ -1,23 +1,60 @@
 package com.goldenbridge.app.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldenbridge.app.dto.GarminActivity;
 import com.goldenbridge.app.dto.GarminLoginRequest;
 import com.goldenbridge.app.dto.GarminLoginResponse;
 import com.goldenbridge.app.dto.GarminLogoutResponse;
 import com.goldenbridge.app.dto.GarminStatusResponse;
+import com.goldenbridge.app.exception.GarminBridgeException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Client for the Python Garmin bridge.
+ * <p>
+ * Methods taking a {@code sessionHandle} act on that caller's own Garmin session (see
+ * {@link GarminSessionRegistry}); the handle travels as the {@value #SESSION_HEADER} header. The
+ * overloads without one use the bridge's legacy shared session.
+ * <p>
+ * Every call that reaches Garmin is paced by the {@link GarminRateLimiter} inside
+ * {@link PythonBridgeGuard#call(String, java.util.function.Supplier)}. Only {@link #callHello} is
+ * not: it is answered by the bridge itself and never reaches Garmin.
+ */
 @Service
 public class GarminIntegrationService {
 
+    public static final String SESSION_HEADER = "X-Garmin-Session";
+
     private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final PythonBridgeGuard bridgeGuard;
     private final String pythonServiceBaseUrl;
 
-    public GarminIntegrationService(RestTemplate restTemplate, @Value("${python.service.base-url}") String pythonServiceBaseUrl) {
+    // Concurrent identical reads (e.g. a dashboard refresh burst) share one upstream round trip.
+    private final SingleFlight<StatusKey, GarminStatusResponse> statusCalls = new SingleFlight<>();
+    private final SingleFlight<ActivityPageKey, String> activityPageCalls = new SingleFlight<>();
+
+    public GarminIntegrationService(RestTemplate restTemplate, ObjectMapper objectMapper, PythonBridgeGuard bridgeGuard,
+                                    @Value("${python.service.base-url}") String pythonServiceBaseUrl) {
         this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.bridgeGuard = bridgeGuard;
         this.pythonServiceBaseUrl = pythonServiceBaseUrl;
     }
 
@@ -27,16 +64,20 @@ public class GarminIntegrationService {
                 .queryParam("name", name)
                 .toUriString();
 
-        return restTemplate.getForObject(url, String.class);
+        return bridgeGuard.call(() -> restTemplate.getForObject(url, String.class));
     }
 
     public GarminLoginResponse loginToGarmin(GarminLoginRequest loginRequest) {
+        return loginToGarmin(null, loginRequest);
+    }
+
+    public GarminLoginResponse loginToGarmin(String sessionHandle, GarminLoginRequest loginRequest) {
         String url = UriComponentsBuilder.fromHttpUrl(pythonServiceBaseUrl)
                 .path("/garmin/login")
                 .toUriString();
 
         try {
-            return restTemplate.postForObject(url, loginRequest, GarminLoginResponse.class);
+            return bridgeGuard.call(sessionHandle, () -> post(url, loginRequest, sessionHandle, GarminLoginResponse.class));
         } catch (HttpClientErrorException e) {
             // The Python service returns a 401 on login failure, which throws this exception.
             // We can return a custom response or re-throw a custom exception.
@@ -45,28 +86,158 @@ public class GarminIntegrationService {
     }
 
     public GarminStatusResponse getGarminStatus() {
+        return getGarminStatus(null);
+    }
+
+    public GarminStatusResponse getGarminStatus(String sessionHandle) {
         String url = UriComponentsBuilder.fromHttpUrl(pythonServiceBaseUrl)
                 .path("/garmin/status")
                 .toUriString();
 
-        return restTemplate.getForObject(url, GarminStatusResponse.class);
+        return statusCalls.execute(new StatusKey(sessionHandle),
+                () -> bridgeGuard.call(sessionHandle, () -> get(url, sessionHandle, GarminStatusResponse.class)));
     }
 
     public GarminLogoutResponse logoutFromGarmin() {
+        return logoutFromGarmin(null);
+    }
+
+    public GarminLogoutResponse logoutFromGarmin(String sessionHandle) {
         String url = UriComponentsBuilder.fromHttpUrl(pythonServiceBaseUrl)
                 .path("/garmin/logout")
                 .toUriString();
 
-        return restTemplate.postForObject(url, null, GarminLogoutResponse.class);
+        return bridgeGuard.call(sessionHandle, () -> post(url, null, sessionHandle, GarminLogoutResponse.class));
     }
 
     public String getGarminActivities(int start, int limit) {
+        return getGarminActivities(null, start, limit);
+    }
+
+    public String getGarminActivities(String sessionHandle, int start, int limit) {
         String url = UriComponentsBuilder.fromHttpUrl(pythonServiceBaseUrl)
                 .path("/garmin/activities")
                 .queryParam("start", start)
                 .queryParam("limit", limit)
                 .toUriString();
 
-        return restTemplate.getForObject(url, String.class);
+        return activityPageCalls.execute(new ActivityPageKey(sessionHandle, start, limit),
+                () -> bridgeGuard.call(sessionHandle, () -> get(url, sessionHandle, String.class)));
+    }
+
+    public String getGarminActivityDetail(long activityId) {
+        return getGarminActivityDetail(null, activityId);
+    }
+
+    public String getGarminActivityDetail(String sessionHandle, long activityId) {
+        String url = UriComponentsBuilder.fromHttpUrl(pythonServiceBaseUrl)
+                .path("/garmin/activity_detail/{activityId}")
+                .buildAndExpand(activityId)
+                .toUriString();
+
+        return bridgeGuard.call(sessionHandle, () -> get(url, sessionHandle, String.class));
+    }
+
+    /**
+     * Walks {@code /garmin/activities} page by page, newest first, and hands each activity to
+     * {@code consumer} as soon as it has been parsed. Only one activity is held in memory at a
+     * time, so the cost of a backfill does not grow with the size of the user's history.
+     *
+     * @return the number of activities delivered to the consumer
+     */
+    public int streamGarminActivities(int pageSize, Consumer<GarminActivity> consumer) {
+        return streamGarminActivities(null, pageSize, consumer);
+    }
+
+    public int streamGarminActivities(String sessionHandle, int pageSize, Consumer<GarminActivity> consumer) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        int[] delivered = {0};
+        Consumer<GarminActivity> counting = activity -> {
+            delivered[0]++;
+            consumer.accept(activity);
+        };
+        int start = 0;
+        while (true) {
+            if (streamGarminActivityPage(sessionHandle, start, pageSize, counting) < pageSize) {
+                return delivered[0];
+            }
+            start += pageSize;
+        }
+    }
+
+    /**
+     * Streams a single page of {@code /garmin/activities} into {@code consumer}. {@code null}
+     * entries in the page are skipped.
+     *
+     * @return the number of entries on the page, skipped ones included, so that only a page
+     *         shorter than {@code limit} marks the end of the list
+     */
+    public int streamGarminActivityPage(int start, int limit, Consumer<GarminActivity> consumer) {
+        return streamGarminActivityPage(null, start, limit, consumer);
+    }
+
+    public int streamGarminActivityPage(String sessionHandle, int start, int limit, Consumer<GarminActivity> consumer) {
+        String url = UriComponentsBuilder.fromHttpUrl(pythonServiceBaseUrl)
+                .path("/garmin/activities")
+                .queryParam("start", start)
+                .queryParam("limit", limit)
+                .toUriString();
+
+        Integer delivered = bridgeGuard.call(sessionHandle, () -> restTemplate.execute(url, HttpMethod.GET,
+                request -> {
+                    request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                    if (sessionHandle != null) {
+                        request.getHeaders().set(SESSION_HEADER, sessionHandle);
+                    }
+                },
+                response -> readActivities(response.getBody(), consumer)));
+        return delivered == null ? 0 : delivered;
+    }
+
+    private <T> T get(String url, String sessionHandle, Class<T> responseType) {
+        if (sessionHandle == null) {
+            return restTemplate.getForObject(url, responseType);
+        }
+        return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(sessionHeaders(sessionHandle)), responseType).getBody();
+    }
+
+    private <T> T post(String url, Object body, String sessionHandle, Class<T> responseType) {
+        if (sessionHandle == null) {
+            return restTemplate.postForObject(url, body, responseType);
+        }
+        return restTemplate.postForObject(url, new HttpEntity<>(body, sessionHeaders(sessionHandle)), responseType);
+    }
+
+    private static HttpHeaders sessionHeaders(String sessionHandle) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(SESSION_HEADER, sessionHandle);
+        return headers;
+    }
+
+    private int readActivities(InputStream body, Consumer<GarminActivity> consumer) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new GarminBridgeException("Expected a JSON array from /garmin/activities but got " + parser.currentToken());
+            }
+            int count = 0;
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == JsonToken.START_OBJECT) {
+                    consumer.accept(GarminActivity.from(objectMapper.readTree(parser)));
+                } else if (token != JsonToken.VALUE_NULL) {
+                    // A truncated body ends with a null token and lands here too
+                    throw new GarminBridgeException("Unexpected " + token + " in the /garmin/activities array");
+                }
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private record StatusKey(String sessionHandle) {
+    }
+
+    private record ActivityPageKey(String sessionHandle, int start, int limit) {
     }
 }
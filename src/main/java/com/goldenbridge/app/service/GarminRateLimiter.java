@@ -0,0 +1,81 @@
+package com.goldenbridge.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.goldenbridge.app.exception.GarminBridgeUnavailableException;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Paces Garmin traffic through two {@link RateBucket}s: one shared by every call and one per
+ * Garmin session (i.e. per user), so a single backfill cannot use up the whole budget.
+ * <p>
+ * A call takes a token from both buckets and waits for the later of the two. If that wait would
+ * exceed {@code max-wait} both tokens are handed back and the call fails fast with
+ * {@link GarminBridgeUnavailableException}. When the bridge reports throttling (HTTP 429), both
+ * buckets cut their rate and then recover gradually while Garmin stays quiet.
+ */
+public class GarminRateLimiter {
+
+    /** Per-user bucket key for calls made on the bridge's legacy shared session. */
+    static final String LEGACY_SESSION_KEY = "legacy";
+
+    private final RateBucket global;
+    private final Supplier<RateBucket> perUserFactory;
+    private final Cache<String, RateBucket> perUser;
+    private final Duration maxWait;
+
+    public GarminRateLimiter(RateBucket global, Supplier<RateBucket> perUserFactory, Duration maxWait, Duration perUserIdleTimeout) {
+        this.global = global;
+        this.perUserFactory = perUserFactory;
+        this.maxWait = maxWait;
+        this.perUser = Caffeine.newBuilder()
+                .expireAfterAccess(perUserIdleTimeout)
+                .build();
+    }
+
+    /**
+     * Blocks until the call may go out.
+     *
+     * @throws GarminBridgeUnavailableException if the wait would exceed {@code max-wait}
+     */
+    public void acquire(String sessionHandle) {
+        RateBucket user = userBucket(sessionHandle);
+        Duration userWait = user.reserve();
+        Duration globalWait = global.reserve();
+        Duration wait = userWait.compareTo(globalWait) >= 0 ? userWait : globalWait;
+        if (wait.compareTo(maxWait) > 0) {
+            user.refund();
+            global.refund();
+            throw new GarminBridgeUnavailableException("Garmin rate limit reached; next slot in "
+                    + wait.toMillis() + " ms", null);
+        }
+        if (!wait.isZero()) {
+            try {
+                Thread.sleep(wait.toMillis(), wait.toNanosPart() % 1_000_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new GarminBridgeUnavailableException("Interrupted while waiting for a Garmin rate limit slot", e);
+            }
+        }
+    }
+
+    public void onThrottled(String sessionHandle) {
+        userBucket(sessionHandle).throttled();
+        global.throttled();
+    }
+
+    public double globalRate() {
+        return global.rate();
+    }
+
+    double userRate(String sessionHandle) {
+        return userBucket(sessionHandle).rate();
+    }
+
+    private RateBucket userBucket(String sessionHandle) {
+        String key = sessionHandle == null ? LEGACY_SESSION_KEY : sessionHandle;
+        return perUser.get(key, k -> perUserFactory.get());
+    }
+}
@@ -0,0 +1,162 @@
+package com.goldenbridge.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.goldenbridge.app.exception.GarminNotLoggedInException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Maps each application user to the handle of their own Garmin session in the Python bridge.
+ * <p>
+ * The handle is a random token sent as {@code X-Garmin-Session} with every bridge call, so one
+ * user's login never replaces another's and different users' calls no longer share one Garmin
+ * client. Entries mirror the bridge's own limits: they expire after
+ * {@code garmin.sessions.idle-timeout} without use, and at most {@code garmin.sessions.max-sessions}
+ * are kept.
+ * <p>
+ * With {@code garmin.sessions.shared} (the default) handles are also stored in
+ * {@link PostgresGarminSessions}, and a user unknown here is looked up there and adopted. Any
+ * instance can then continue a crashed instance's syncs and queued activities, provided the
+ * instances share one Python bridge ({@code python.service.base-url}); a handle means nothing to
+ * another bridge. Every {@code garmin.sessions.touch-interval} this instance marks the sessions it
+ * uses as alive and picks up logins and logouts made elsewhere, so a replaced handle is used here
+ * for at most that long.
+ */
+@Component
+public class GarminSessionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(GarminSessionRegistry.class);
+
+    private final Cache<String, String> handlesByUsername;
+    private final Duration idleTimeout;
+    private final PostgresGarminSessions shared;
+
+    /**
+     * A registry local to this instance, for callers constructing it outside Spring.
+     */
+    public GarminSessionRegistry(Duration idleTimeout, long maxSessions) {
+        this(idleTimeout, maxSessions, (PostgresGarminSessions) null);
+    }
+
+    @Autowired
+    public GarminSessionRegistry(@Value("${garmin.sessions.idle-timeout:30m}") Duration idleTimeout,
+                                 @Value("${garmin.sessions.max-sessions:100}") long maxSessions,
+                                 ObjectProvider<PostgresGarminSessions> shared) {
+        this(idleTimeout, maxSessions, shared.getIfAvailable());
+    }
+
+    GarminSessionRegistry(Duration idleTimeout, long maxSessions, PostgresGarminSessions shared) {
+        this.handlesByUsername = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(maxSessions)
+                .build();
+        this.idleTimeout = idleTimeout;
+        this.shared = shared;
+    }
+
+    /**
+     * Issues a fresh handle to log in with. It only becomes the user's session through
+     * {@link #activate}, so a failed login leaves the current session untouched.
+     */
+    public String newHandle() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Makes {@code handle} the session of {@code username}.
+     *
+     * @return the handle it replaced, whose bridge session the caller should log out
+     */
+    public Optional<String> activate(String username, String handle) {
+        Optional<String> replaced = Optional.ofNullable(handlesByUsername.asMap().put(username, handle));
+        if (shared != null) {
+            if (replaced.isEmpty()) {
+                // The session being replaced may have been opened on another instance
+                replaced = findShared(username);
+            }
+            try {
+                shared.save(username, handle);
+            } catch (DataAccessException e) {
+                logger.warn("Could not share the Garmin session of {}; only this instance will use it: {}", username, e.getMessage());
+            }
+        }
+        return replaced.filter(previous -> !previous.equals(handle));
+    }
+
+    public Optional<String> findSession(String username) {
+        String handle = handlesByUsername.getIfPresent(username);
+        if (handle != null || shared == null) {
+            return Optional.ofNullable(handle);
+        }
+        Optional<String> adopted = findShared(username);
+        adopted.ifPresent(found -> handlesByUsername.asMap().putIfAbsent(username, found));
+        return adopted;
+    }
+
+    public String requireSession(String username) {
+        return findSession(username).orElseThrow(() -> new GarminNotLoggedInException(username));
+    }
+
+    public void closeSession(String username) {
+        handlesByUsername.invalidate(username);
+        if (shared != null) {
+            try {
+                shared.delete(username);
+            } catch (DataAccessException e) {
+                logger.warn("Could not remove the shared Garmin session of {}: {}", username, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Keeps the shared rows of the sessions used here alive and aligns this instance with logins
+     * and logouts made on other instances.
+     */
+    @Scheduled(fixedDelayString = "${garmin.sessions.touch-interval:1m}", initialDelayString = "${garmin.sessions.touch-interval:1m}")
+    public void touchSessions() {
+        if (shared == null) {
+            return;
+        }
+        List<String> usernames = List.copyOf(handlesByUsername.asMap().keySet());
+        if (usernames.isEmpty()) {
+            return;
+        }
+        Map<String, String> current;
+        try {
+            current = shared.touch(usernames);
+        } catch (DataAccessException e) {
+            logger.warn("Could not refresh shared Garmin sessions: {}", e.getMessage());
+            return;
+        }
+        for (String username : usernames) {
+            String handle = current.get(username);
+            if (handle == null) {
+                handlesByUsername.invalidate(username);
+            } else {
+                handlesByUsername.asMap().computeIfPresent(username, (key, local) -> handle);
+            }
+        }
+    }
+
+    private Optional<String> findShared(String username) {
+        try {
+            return shared.find(username, idleTimeout);
+        } catch (DataAccessException e) {
+            logger.warn("Could not look up the shared Garmin session of {}: {}", username, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.goldenbridge.app.service;
+
+/**
+ * Published once a Garmin sync for a user has finished, successfully or not, so that
+ * anything holding per-user Garmin data can drop it.
+ */
+public record GarminSyncCompletedEvent(Long userId, String username) {
+}
@@ -0,0 +1,179 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.entity.SyncHistory;
+import com.goldenbridge.app.entity.User;
+import com.goldenbridge.app.entity.UserPreferences;
+import com.goldenbridge.app.exception.SyncAlreadyRunningException;
+import com.goldenbridge.app.exception.SyncQueueFullException;
+import com.goldenbridge.app.repository.SyncHistoryRepository;
+import com.goldenbridge.app.repository.UserPreferencesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fans Garmin syncs out across users on the bounded {@code garminSyncExecutor} pool.
+ * <p>
+ * Every user's sync is an independent task, so a user with a slow Garmin account or a huge
+ * history occupies one worker while the others keep draining the queue. A user is never synced
+ * twice at the same time. Scheduled runs pick up every user whose auto-sync preference is due
+ * and who has an open Garmin session; manual runs go through {@link #triggerSync}.
+ */
+@Service
+public class GarminSyncOrchestrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(GarminSyncOrchestrator.class);
+
+    private final UserPreferencesRepository userPreferencesRepository;
+    private final SyncHistoryRepository syncHistoryRepository;
+    private final GarminSessionRegistry garminSessionRegistry;
+    private final GarminSyncService garminSyncService;
+    private final AsyncTaskExecutor syncExecutor;
+    private final Set<Long> runningUserIds = ConcurrentHashMap.newKeySet();
+
+    public GarminSyncOrchestrator(UserPreferencesRepository userPreferencesRepository, SyncHistoryRepository syncHistoryRepository,
+                                  GarminSessionRegistry garminSessionRegistry, GarminSyncService garminSyncService,
+                                  @Qualifier("garminSyncExecutor") AsyncTaskExecutor syncExecutor) {
+        this.userPreferencesRepository = userPreferencesRepository;
+        this.syncHistoryRepository = syncHistoryRepository;
+        this.garminSessionRegistry = garminSessionRegistry;
+        this.garminSyncService = garminSyncService;
+        this.syncExecutor = syncExecutor;
+    }
+
+    @Scheduled(fixedDelayString = "${garmin.sync.poll-interval:5m}", initialDelayString = "${garmin.sync.initial-delay:1m}")
+    public void scheduleDueSyncs() {
+        Map<Long, LocalDateTime> lastStarts = latestSyncStarts();
+        LocalDateTime now = LocalDateTime.now();
+        int submitted = 0;
+        for (UserPreferences preferences : userPreferencesRepository.findActiveAutoSyncPreferences()) {
+            User user = preferences.getUser();
+            LocalDateTime lastStart = lastStarts.get(user.getId());
+            if (lastStart != null && lastStart.plusHours(preferences.getSyncFrequencyHours()).isAfter(now)) {
+                continue;
+            }
+            Optional<String> sessionHandle = garminSessionRegistry.findSession(user.getUsername());
+            if (sessionHandle.isEmpty()) {
+                logger.debug("Skipping scheduled sync for {}: no open Garmin session", user.getUsername());
+                continue;
+            }
+            try {
+                if (submit(user, sessionHandle.get(), SyncHistory.SyncType.SCHEDULED).isPresent()) {
+                    submitted++;
+                }
+            } catch (SyncQueueFullException e) {
+                // Queue is full: the remaining users are picked up by the next run
+                logger.warn("Sync queue full after submitting {} scheduled syncs", submitted);
+                break;
+            }
+        }
+        if (submitted > 0) {
+            logger.info("Submitted {} scheduled Garmin syncs ({} running)", submitted, runningUserIds.size());
+        }
+    }
+
+    /**
+     * Starts a sync for {@code user} now. The returned handle carries the {@code STARTED} history
+     * record, and its future completes with the final one.
+     *
+     * @throws SyncAlreadyRunningException if a sync for the user is already running
+     * @throws SyncQueueFullException if the sync pool cannot take another sync right now
+     */
+    public SyncHandle triggerSync(User user, SyncHistory.SyncType syncType) {
+        String sessionHandle = garminSessionRegistry.requireSession(user.getUsername());
+        return submit(user, sessionHandle, syncType)
+                .orElseThrow(() -> new SyncAlreadyRunningException(user.getUsername()));
+    }
+
+    /**
+     * Resumes a run taken over from another instance by {@link StuckSyncReaper}. The run continues
+     * on its existing history record; since syncs skip activities already stored, it simply picks
+     * up where the lost instance stopped. The user's Garmin session is resolved through the shared
+     * {@link GarminSessionRegistry}, so it does not matter which instance the user logged in on.
+     * A run that cannot be resumed, because the user no longer has a Garmin session anywhere or
+     * is already being synced here, is failed straight away so the user is not left waiting on it.
+     *
+     * @return whether the run was resubmitted
+     */
+    public boolean resumeSync(SyncHistory history) {
+        User user = history.getUser();
+        Optional<String> sessionHandle = garminSessionRegistry.findSession(user.getUsername());
+        if (sessionHandle.isEmpty()) {
+            garminSyncService.rejectSync(history, "Sync instance stopped responding and the user has no Garmin session to resume it with");
+            return false;
+        }
+        if (!runningUserIds.add(user.getId())) {
+            garminSyncService.rejectSync(history, "Sync instance stopped responding while another sync for the user was running");
+            return false;
+        }
+        try {
+            dispatch(history, user, sessionHandle.get());
+            return true;
+        } catch (SyncQueueFullException e) {
+            return false;
+        }
+    }
+
+    public boolean isRunning(Long userId) {
+        return runningUserIds.contains(userId);
+    }
+
+    private Optional<SyncHandle> submit(User user, String sessionHandle, SyncHistory.SyncType syncType) {
+        if (!runningUserIds.add(user.getId())) {
+            return Optional.empty();
+        }
+        SyncHistory history;
+        try {
+            history = garminSyncService.startSync(user, syncType);
+        } catch (RuntimeException e) {
+            runningUserIds.remove(user.getId());
+            throw e;
+        }
+        return Optional.of(new SyncHandle(history, dispatch(history, user, sessionHandle)));
+    }
+
+    /**
+     * Runs {@code history} on the sync pool; the caller has already added the user to {@code runningUserIds}.
+     */
+    private CompletableFuture<SyncHistory> dispatch(SyncHistory history, User user, String sessionHandle) {
+        try {
+            return syncExecutor.submitCompletable(() -> {
+                try {
+                    return garminSyncService.runSync(history, user, sessionHandle);
+                } finally {
+                    runningUserIds.remove(user.getId());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            runningUserIds.remove(user.getId());
+            garminSyncService.rejectSync(history, "Sync queue is full");
+            throw new SyncQueueFullException("Garmin sync queue is full; try again later", e);
+        }
+    }
+
+    private Map<Long, LocalDateTime> latestSyncStarts() {
+        Map<Long, LocalDateTime> lastStarts = new HashMap<>();
+        for (Object[] row : syncHistoryRepository.findLatestSyncStartPerUser()) {
+            lastStarts.put((Long) row[0], (LocalDateTime) row[1]);
+        }
+        return lastStarts;
+    }
+
+    /**
+     * A submitted sync: its history record as first stored, and the eventual final record.
+     */
+    public record SyncHandle(SyncHistory history, CompletableFuture<SyncHistory> completion) {
+    }
+}
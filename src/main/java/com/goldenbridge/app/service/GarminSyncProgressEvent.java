@@ -0,0 +1,62 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.entity.SyncHistory;
+import com.goldenbridge.app.entity.User;
+
+import java.time.Instant;
+
+/**
+ * Published by {@link GarminSyncService} as a sync moves through its stages, carrying the
+ * running counters. Consumed in memory by {@link SyncProgressBroadcaster}; never persisted.
+ *
+ * @param page zero-based page of the Garmin activity list the run is on
+ */
+public record GarminSyncProgressEvent(
+        Long syncId,
+        String username,
+        SyncHistory.SyncType syncType,
+        Stage stage,
+        int page,
+        int activitiesProcessed,
+        int activitiesSynced,
+        int activitiesSkipped,
+        int activitiesFailed,
+        String errorMessage,
+        Instant at) {
+
+    public enum Stage {
+        QUEUED,
+        FETCHING_PAGE,
+        SAVING_PAGE,
+        COMPLETED,
+        CANCELLED,
+        FAILED;
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == CANCELLED || this == FAILED;
+        }
+
+        static Stage finished(SyncHistory.SyncStatus status) {
+            return switch (status) {
+                case COMPLETED -> COMPLETED;
+                case CANCELLED -> CANCELLED;
+                default -> FAILED;
+            };
+        }
+    }
+
+    static GarminSyncProgressEvent of(SyncHistory history, User user, Stage stage, int page) {
+        return new GarminSyncProgressEvent(
+                history.getId(),
+                user.getUsername(),
+                history.getSyncType(),
+                stage,
+                page,
+                history.getActivitiesProcessed(),
+                history.getActivitiesSynced(),
+                history.getActivitiesSkipped(),
+                history.getActivitiesFailed(),
+                history.getErrorMessage(),
+                Instant.now());
+    }
+}
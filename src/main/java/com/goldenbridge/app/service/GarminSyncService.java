@@ -0,0 +1,297 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.dto.GarminActivity;
+import com.goldenbridge.app.entity.Activity;
+import com.goldenbridge.app.entity.SyncHistory;
+import com.goldenbridge.app.entity.User;
+import com.goldenbridge.app.repository.ActivityRepository;
+import com.goldenbridge.app.repository.SyncHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Syncs one user's Garmin activities into the {@code activities} table.
+ * <p>
+ * The activity list is walked page by page over the user's Garmin session. Each page is written
+ * in its own short transaction together with the {@link SyncHistory} counters, so a sync holds a
+ * database connection only while it writes, and its progress is visible while it runs. New
+ * activities are stored as {@code PENDING}. A stored activity is rewritten, and queued as
+ * {@code PENDING} again, only when the SHA-256 of its canonical payload ({@link ActivityDataHash})
+ * differs from {@code data_hash}; unchanged ones cost no write and are counted as skipped.
+ * <p>
+ * Syncs are incremental unless they are {@link SyncHistory.SyncType#FULL_RESYNC}: Garmin lists
+ * activities newest first, so paging stops after the first page that reaches an activity already
+ * stored or one no newer than the user's high-watermark (their newest stored activity). A daily
+ * sync then costs one or two pages instead of the whole history. Activities uploaded late with an
+ * older start time are only picked up by a full resync.
+ * <p>
+ * The user's stored Garmin ids are loaded once per sync into {@link KnownActivityIds}, so deciding
+ * whether a listed activity is new needs no SQL; the database is asked only about ids the set
+ * already contains.
+ * <p>
+ * Every run holds a {@link SyncLeaseManager} lease from {@link #startSync} until it finishes. A
+ * run whose lease was lost stops at its next page and leaves the record to the new owner. A run
+ * cancelled through {@link SyncCancellations} stops at the same checkpoint, before fetching its next
+ * page, and ends {@code CANCELLED} with the pages it already wrote kept.
+ * <p>
+ * Each stage and page publishes a {@link GarminSyncProgressEvent} with the running counters, for
+ * live progress streams that should not have to re-read {@code sync_history}.
+ */
+@Service
+public class GarminSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GarminSyncService.class);
+
+    private static final BigDecimal MPS_TO_KMH = BigDecimal.valueOf(3.6);
+
+    private final GarminIntegrationService garminIntegrationService;
+    private final ActivityRepository activityRepository;
+    private final SyncHistoryRepository syncHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SyncLeaseManager syncLeases;
+    private final SyncCancellations syncCancellations;
+    private final int pageSize;
+
+    public GarminSyncService(GarminIntegrationService garminIntegrationService, ActivityRepository activityRepository,
+                             SyncHistoryRepository syncHistoryRepository, PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher, SyncLeaseManager syncLeases,
+                             SyncCancellations syncCancellations, @Value("${garmin.sync.page-size:100}") int pageSize) {
+        this.garminIntegrationService = garminIntegrationService;
+        this.activityRepository = activityRepository;
+        this.syncHistoryRepository = syncHistoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.syncLeases = syncLeases;
+        this.syncCancellations = syncCancellations;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Records a new {@code STARTED} sync for {@code user}, leased to this instance; {@link #runSync} does the work.
+     */
+    public SyncHistory startSync(User user, SyncHistory.SyncType syncType) {
+        SyncHistory history = new SyncHistory(syncType, user);
+        syncLeases.stamp(history);
+        SyncHistory saved = transactionTemplate.execute(status -> syncHistoryRepository.save(history));
+        syncLeases.hold(saved.getId());
+        publishProgress(saved, user, GarminSyncProgressEvent.Stage.QUEUED, 0);
+        return saved;
+    }
+
+    /**
+     * Marks a started sync as failed without running it, e.g. when no worker could take it.
+     */
+    public void rejectSync(SyncHistory history, String reason) {
+        history.setSyncStatus(SyncHistory.SyncStatus.FAILED);
+        history.setErrorMessage(reason);
+        history.setSyncCompletedAt(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> syncHistoryRepository.save(history));
+        syncLeases.release(history.getId());
+        publishProgress(history, history.getUser(), GarminSyncProgressEvent.Stage.FAILED, 0);
+    }
+
+    /**
+     * Runs the sync recorded by {@code history} to completion and returns it with its final
+     * status and counters. Failures are recorded on the history rather than thrown. The run must
+     * be leased to this instance, either by {@link #startSync} or {@link SyncLeaseManager#tryTakeOver}.
+     */
+    public SyncHistory runSync(SyncHistory history, User user, String sessionHandle) {
+        history.setSyncStatus(SyncHistory.SyncStatus.IN_PROGRESS);
+        int pageNumber = 0;
+        try {
+            Optional<Watermark> watermark = history.getSyncType() == SyncHistory.SyncType.FULL_RESYNC
+                    ? Optional.empty()
+                    : findWatermark(user);
+            watermark.ifPresent(mark -> history.setSyncDetails("Incremental from activity " + mark.garminActivityId()
+                    + " (" + mark.activityDate() + ")"));
+            KnownActivityIds known = transactionTemplate.execute(status ->
+                    KnownActivityIds.of(activityRepository.findGarminActivityIdsByUser(user)));
+            int start = 0;
+            boolean cancelled = false;
+            while (true) {
+                requireLease(history);
+                if (syncCancellations.isRequested(history.getId())) {
+                    cancelled = true;
+                    break;
+                }
+                publishProgress(history, user, GarminSyncProgressEvent.Stage.FETCHING_PAGE, pageNumber);
+                List<GarminActivity> page = new ArrayList<>(pageSize);
+                int entries = garminIntegrationService.streamGarminActivityPage(sessionHandle, start, pageSize, page::add);
+                publishProgress(history, user, GarminSyncProgressEvent.Stage.SAVING_PAGE, pageNumber);
+                int alreadyStored = savePage(history, user, page, known);
+                if (entries < pageSize || watermark.isPresent() && (alreadyStored > 0 || watermark.get().reachedBy(page))) {
+                    break;
+                }
+                start += pageSize;
+                pageNumber++;
+            }
+            history.setSyncStatus(cancelled ? SyncHistory.SyncStatus.CANCELLED : SyncHistory.SyncStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            logger.warn("Garmin sync {} for user {} failed", history.getId(), user.getUsername(), e);
+            history.setSyncStatus(SyncHistory.SyncStatus.FAILED);
+            history.setErrorMessage(e.getMessage());
+        } finally {
+            syncCancellations.clear(history.getId());
+            if (syncLeases.isHeld(history.getId())) {
+                history.setSyncCompletedAt(LocalDateTime.now());
+                transactionTemplate.executeWithoutResult(status -> syncHistoryRepository.save(history));
+                syncLeases.release(history.getId());
+                publishProgress(history, user, GarminSyncProgressEvent.Stage.finished(history.getSyncStatus()), pageNumber);
+                eventPublisher.publishEvent(new GarminSyncCompletedEvent(user.getId(), user.getUsername()));
+            }
+        }
+        logger.info("Garmin sync {} for user {} {}: {} processed, {} synced, {} skipped, {} failed",
+                history.getId(), user.getUsername(), history.getSyncStatus(), history.getActivitiesProcessed(),
+                history.getActivitiesSynced(), history.getActivitiesSkipped(), history.getActivitiesFailed());
+        return history;
+    }
+
+    private void requireLease(SyncHistory history) {
+        if (!syncLeases.isHeld(history.getId())) {
+            throw new IllegalStateException("Lease on sync run " + history.getId() + " was lost to another instance");
+        }
+    }
+
+    private void publishProgress(SyncHistory history, User user, GarminSyncProgressEvent.Stage stage, int page) {
+        eventPublisher.publishEvent(GarminSyncProgressEvent.of(history, user, stage, page));
+    }
+
+    private Optional<Watermark> findWatermark(User user) {
+        return transactionTemplate.execute(status -> activityRepository.findFirstByUserOrderByActivityDateDesc(user)
+                .map(newest -> new Watermark(newest.getGarminActivityId(), newest.getActivityDate())));
+    }
+
+    /**
+     * Inserts the new activities on {@code page} and rewrites stored ones whose payload hash
+     * changed, in one bulk upsert, and returns how many were already stored. Unchanged activities
+     * are not written at all.
+     */
+    private int savePage(SyncHistory history, User user, List<GarminActivity> page, KnownActivityIds known) {
+        Map<String, GarminActivity> byGarminId = new LinkedHashMap<>();
+        for (GarminActivity activity : page) {
+            byGarminId.putIfAbsent(String.valueOf(activity.activityId()), activity);
+        }
+        return transactionTemplate.execute(status -> {
+            List<GarminActivity> candidates = byGarminId.values().stream()
+                    .filter(activity -> activity.startTimeLocal() != null && known.contains(String.valueOf(activity.activityId())))
+                    .toList();
+            Map<String, String> storedHashes = candidates.isEmpty() ? Map.of() : storedHashes(user, candidates);
+            List<Activity> changed = new ArrayList<>();
+            Map<String, String> rawPayloads = new HashMap<>();
+            int invalid = 0;
+            for (Map.Entry<String, GarminActivity> entry : byGarminId.entrySet()) {
+                GarminActivity source = entry.getValue();
+                if (source.startTimeLocal() == null) {
+                    invalid++;
+                    continue;
+                }
+                String hash = ActivityDataHash.of(source.raw());
+                if (!hash.equals(storedHashes.get(entry.getKey()))) {
+                    changed.add(toActivity(source, user, hash));
+                    if (source.raw() != null) {
+                        rawPayloads.put(entry.getKey(), source.raw().toString());
+                    }
+                }
+            }
+            if (!changed.isEmpty()) {
+                activityRepository.upsertAll(changed, rawPayloads);
+                changed.forEach(activity -> known.add(activity.getGarminActivityId()));
+            }
+            int written = changed.size();
+            history.setActivitiesProcessed(history.getActivitiesProcessed() + page.size());
+            history.setActivitiesSynced(history.getActivitiesSynced() + written);
+            history.setActivitiesFailed(history.getActivitiesFailed() + invalid);
+            history.setActivitiesSkipped(history.getActivitiesSkipped() + page.size() - written - invalid);
+            syncHistoryRepository.save(history);
+            return storedHashes.size();
+        });
+    }
+
+    private Map<String, String> storedHashes(User user, List<GarminActivity> candidates) {
+        Set<String> garminActivityIds = candidates.stream()
+                .map(activity -> String.valueOf(activity.activityId()))
+                .collect(Collectors.toSet());
+        LocalDateTime from = candidates.stream().map(GarminActivity::startTimeLocal).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = candidates.stream().map(GarminActivity::startTimeLocal).max(Comparator.naturalOrder()).orElseThrow();
+        Map<String, String> hashes = new HashMap<>();
+        for (Object[] row : activityRepository.findDataHashes(user, garminActivityIds, from, to)) {
+            hashes.put((String) row[0], (String) row[1]);
+        }
+        return hashes;
+    }
+
+    static Activity toActivity(GarminActivity source, User user, String dataHash) {
+        Activity activity = new Activity();
+        activity.setGarminActivityId(String.valueOf(source.activityId()));
+        activity.setUser(user);
+        apply(source, activity, dataHash);
+        return activity;
+    }
+
+    /**
+     * Copies {@code source} onto {@code target} and queues it for downstream processing again.
+     */
+    static void apply(GarminActivity source, Activity target, String dataHash) {
+        String name = source.activityName() == null || source.activityName().isBlank()
+                ? (source.activityType() != null ? source.activityType() : "Untitled activity")
+                : source.activityName();
+        target.setActivityName(name);
+        target.setActivityDate(source.startTimeLocal());
+        target.setActivityType(source.activityType());
+        target.setDurationSeconds(integer(source.durationSeconds()));
+        target.setDistanceMeters(decimal(source.distanceMeters()));
+        target.setCalories(integer(source.calories()));
+        target.setAverageHeartRate(integer(source.averageHeartRate()));
+        target.setMaxHeartRate(integer(source.maxHeartRate()));
+        target.setAveragePower(integer(source.averagePower()));
+        target.setMaxPower(integer(source.maxPower()));
+        target.setElevationGainMeters(decimal(source.elevationGainMeters()));
+        target.setAverageSpeedKmh(kmh(source.averageSpeedMetersPerSecond()));
+        target.setMaxSpeedKmh(kmh(source.maxSpeedMetersPerSecond()));
+        target.setDataHash(dataHash);
+        target.setSyncStatus(Activity.SyncStatus.PENDING);
+    }
+
+    /**
+     * The user's newest stored activity; anything listed at or before it has been seen already.
+     */
+    private record Watermark(String garminActivityId, LocalDateTime activityDate) {
+
+        boolean reachedBy(List<GarminActivity> page) {
+            return page.stream().anyMatch(activity -> activity.startTimeLocal() != null
+                    && !activity.startTimeLocal().isAfter(activityDate));
+        }
+    }
+
+    private static Integer integer(Double value) {
+        return value == null ? null : (int) Math.round(value);
+    }
+
+    private static BigDecimal decimal(Double value) {
+        return value == null ? null : BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal kmh(Double metersPerSecond) {
+        return metersPerSecond == null ? null
+                : BigDecimal.valueOf(metersPerSecond).multiply(MPS_TO_KMH).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,72 @@
+package com.goldenbridge.app.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * In-memory set of the Garmin activity ids a user already has, loaded once at the start of a sync.
+ * <p>
+ * Garmin ids are numeric, so they are kept as a sorted {@code long[]} (8 bytes per activity, no
+ * boxing) and looked up by binary search; the rare non-numeric id falls back to a small string
+ * set. Ids stored during the sync are added as they are written, which catches an activity that
+ * shows up on two pages because a new upload shifted the list mid-sync.
+ */
+final class KnownActivityIds {
+
+    private final long[] loaded;
+    private final Set<String> nonNumeric;
+    private final Set<Long> added = new HashSet<>();
+
+    private KnownActivityIds(long[] loaded, Set<String> nonNumeric) {
+        this.loaded = loaded;
+        this.nonNumeric = nonNumeric;
+    }
+
+    static KnownActivityIds of(Collection<String> garminActivityIds) {
+        long[] numeric = new long[garminActivityIds.size()];
+        int count = 0;
+        Set<String> nonNumeric = new HashSet<>();
+        for (String id : garminActivityIds) {
+            Long parsed = parse(id);
+            if (parsed == null) {
+                nonNumeric.add(id);
+            } else {
+                numeric[count++] = parsed;
+            }
+        }
+        long[] sorted = Arrays.copyOf(numeric, count);
+        Arrays.sort(sorted);
+        return new KnownActivityIds(sorted, nonNumeric);
+    }
+
+    boolean contains(String garminActivityId) {
+        Long parsed = parse(garminActivityId);
+        if (parsed == null) {
+            return nonNumeric.contains(garminActivityId);
+        }
+        return Arrays.binarySearch(loaded, parsed) >= 0 || added.contains(parsed);
+    }
+
+    void add(String garminActivityId) {
+        Long parsed = parse(garminActivityId);
+        if (parsed == null) {
+            nonNumeric.add(garminActivityId);
+        } else {
+            added.add(parsed);
+        }
+    }
+
+    int size() {
+        return loaded.length + nonNumeric.size() + added.size();
+    }
+
+    private static Long parse(String garminActivityId) {
+        try {
+            return Long.parseLong(garminActivityId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.dto.GarminActivityDetailResult;
+import com.goldenbridge.app.entity.Activity;
+import com.goldenbridge.app.repository.ActivityRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the {@code activities} table as a durable work queue of PENDING activities.
+ * <p>
+ * A batch is claimed with {@code FOR UPDATE SKIP LOCKED} and flipped to IN_PROGRESS in the same
+ * short transaction, so any number of application instances can poll concurrently without two
+ * of them picking up the same row and without holding row locks while the bridge is called.
+ * Each claimed activity then has its Garmin details fetched in parallel and ends COMPLETED (with
+ * the detail payload stored) or FAILED (with the error and, per {@link ActivityRetryPolicy}, when
+ * {@link ActivityRetryScheduler} should requeue it). While a user's sync run is being cancelled
+ * through {@link SyncCancellations}, no further detail is fetched for that user and the
+ * activities not yet fetched go back to PENDING. Rows left IN_PROGRESS by a crashed
+ * instance are put back to PENDING once they are older than {@code garmin.activity-queue.claim-timeout}.
+ */
+@Service
+public class PendingActivityWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingActivityWorker.class);
+
+    private final ActivityRepository activityRepository;
+    private final GarminSessionRegistry garminSessionRegistry;
+    private final GarminActivityDetailFetcher detailFetcher;
+    private final ActivityRetryPolicy retryPolicy;
+    private final SyncCancellations syncCancellations;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration claimTimeout;
+
+    public PendingActivityWorker(ActivityRepository activityRepository, GarminSessionRegistry garminSessionRegistry,
+                                 GarminActivityDetailFetcher detailFetcher, ActivityRetryPolicy retryPolicy,
+                                 SyncCancellations syncCancellations, PlatformTransactionManager transactionManager,
+                                 @Value("${garmin.activity-queue.batch-size:50}") int batchSize,
+                                 @Value("${garmin.activity-queue.max-batches-per-run:20}") int maxBatchesPerRun,
+                                 @Value("${garmin.activity-queue.claim-timeout:10m}") Duration claimTimeout) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("garmin.activity-queue.batch-size must be at least 1");
+        }
+        this.activityRepository = activityRepository;
+        this.garminSessionRegistry = garminSessionRegistry;
+        this.detailFetcher = detailFetcher;
+        this.retryPolicy = retryPolicy;
+        this.syncCancellations = syncCancellations;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.claimTimeout = claimTimeout;
+    }
+
+    @Scheduled(fixedDelayString = "${garmin.activity-queue.poll-interval:10s}", initialDelayString = "${garmin.activity-queue.initial-delay:30s}")
+    public void drainQueue() {
+        releaseStaleClaims();
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<ClaimedActivity> claimed = claimBatch();
+            if (claimed.isEmpty()) {
+                return;
+            }
+            process(claimed);
+            if (claimed.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Claims up to {@code batch-size} PENDING activities for this instance. The row locks are
+     * only held until the status flip commits; from then on IN_PROGRESS keeps other workers away.
+     */
+    List<ClaimedActivity> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            List<Activity> locked = activityRepository.lockPendingBatch(batchSize);
+            if (locked.isEmpty()) {
+                return List.of();
+            }
+            List<ClaimedActivity> claimed = locked.stream().map(ClaimedActivity::of).toList();
+            activityRepository.updateSyncStatus(claimed.stream().map(ClaimedActivity::id).toList(),
+                    Activity.SyncStatus.IN_PROGRESS, LocalDateTime.now());
+            return claimed;
+        });
+    }
+
+    void process(List<ClaimedActivity> claimed) {
+        Map<String, List<ClaimedActivity>> byUser = claimed.stream()
+                .collect(Collectors.groupingBy(ClaimedActivity::username, LinkedHashMap::new, Collectors.toList()));
+        Map<String, BooleanSupplier> stopChecks = syncCancellations.detailFetchStopChecks(byUser.keySet());
+        byUser.forEach((username, activities) -> {
+            Optional<String> sessionHandle = garminSessionRegistry.findSession(username);
+            if (sessionHandle.isEmpty()) {
+                // The user has no session on any instance; the refreshed last_sync_attempt sends
+                // these rows to the back of the queue until they log in again
+                logger.debug("No Garmin session for {}; releasing {} activities", username, activities.size());
+                release(activities);
+                return;
+            }
+            fetchDetails(sessionHandle.get(), username, activities, stopChecks.getOrDefault(username, () -> false));
+        });
+    }
+
+    private void fetchDetails(String sessionHandle, String username, List<ClaimedActivity> activities, BooleanSupplier stopRequested) {
+        Map<Long, ClaimedActivity> byGarminId = new LinkedHashMap<>();
+        for (ClaimedActivity activity : activities) {
+            if (activity.numericGarminId() == null) {
+                // Retrying cannot fix the id, so this one is not rescheduled
+                failPermanently(activity, "Garmin activity id is not numeric: " + activity.garminActivityId());
+            } else {
+                byGarminId.put(activity.numericGarminId(), activity);
+            }
+        }
+        Map<Long, ClaimedActivity> unfetched = new LinkedHashMap<>(byGarminId);
+        detailFetcher.fetchDetails(sessionHandle, byGarminId.keySet(), stopRequested, result -> {
+            ClaimedActivity activity = unfetched.remove(result.activityId());
+            if (result.succeeded()) {
+                complete(activity.id(), result);
+            } else {
+                fail(activity, result.error());
+            }
+        });
+        if (!unfetched.isEmpty()) {
+            // Like a missing session, the refreshed last_sync_attempt keeps them at the back of the queue
+            logger.debug("Sync for {} was cancelled; releasing {} activities", username, unfetched.size());
+            release(List.copyOf(unfetched.values()));
+        }
+    }
+
+    private void release(List<ClaimedActivity> activities) {
+        transactionTemplate.executeWithoutResult(status -> activityRepository.updateSyncStatus(
+                activities.stream().map(ClaimedActivity::id).toList(), Activity.SyncStatus.PENDING, LocalDateTime.now()));
+    }
+
+    private void complete(Long id, GarminActivityDetailResult result) {
+        transactionTemplate.executeWithoutResult(status -> activityRepository.completeSync(id, result.detailJson(), LocalDateTime.now()));
+    }
+
+    private void fail(ClaimedActivity activity, String error) {
+        int attempts = activity.syncAttempts() + 1;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime nextAttemptAt = retryPolicy.nextAttemptAt(attempts, now).orElse(null);
+        if (nextAttemptAt == null) {
+            logger.warn("Giving up on Garmin activity {} after {} attempts: {}", activity.garminActivityId(), attempts, error);
+        }
+        transactionTemplate.executeWithoutResult(status -> activityRepository.failSync(activity.id(), error, attempts, nextAttemptAt, now));
+    }
+
+    private void failPermanently(ClaimedActivity activity, String error) {
+        transactionTemplate.executeWithoutResult(status ->
+                activityRepository.failSync(activity.id(), error, activity.syncAttempts() + 1, null, LocalDateTime.now()));
+    }
+
+    private void releaseStaleClaims() {
+        Integer released = transactionTemplate.execute(status ->
+                activityRepository.releaseStaleClaims(LocalDateTime.now().minus(claimTimeout)));
+        if (released != null && released > 0) {
+            logger.warn("Released {} activities left IN_PROGRESS for longer than {}", released, claimTimeout);
+        }
+    }
+
+    /**
+     * The parts of a claimed row the worker needs once the claiming transaction has closed.
+     */
+    record ClaimedActivity(Long id, String garminActivityId, String username, int syncAttempts) {
+
+        static ClaimedActivity of(Activity activity) {
+            return new ClaimedActivity(activity.getId(), activity.getGarminActivityId(), activity.getUser().getUsername(),
+                    activity.getSyncAttempts());
+        }
+
+        Long numericGarminId() {
+            try {
+                return Long.parseLong(garminActivityId);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.goldenbridge.app.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The current Garmin session handle of each user, kept in {@code garmin_sessions} so that every
+ * instance can resolve it, not only the one that handled the login. {@link GarminSessionRegistry}
+ * consults it when its own cache has no entry for a user.
+ * <p>
+ * {@code last_used_at} is refreshed in bulk by the instances still using a session; one unused for
+ * longer than the idle timeout is treated as gone, as the bridge will have evicted it by then.
+ */
+@Component
+@ConditionalOnProperty(name = "garmin.sessions.shared", havingValue = "true", matchIfMissing = true)
+public class PostgresGarminSessions {
+
+    private static final String SAVE = "INSERT INTO garmin_sessions (username, handle, last_used_at) VALUES (?, ?, now()) "
+            + "ON CONFLICT (username) DO UPDATE SET handle = EXCLUDED.handle, last_used_at = EXCLUDED.last_used_at";
+
+    private static final String FIND = "SELECT handle FROM garmin_sessions "
+            + "WHERE username = ? AND last_used_at > now() - make_interval(secs => ?)";
+
+    private static final String TOUCH = "UPDATE garmin_sessions SET last_used_at = now() WHERE username = ANY(?) "
+            + "RETURNING username, handle";
+
+    private static final String DELETE = "DELETE FROM garmin_sessions WHERE username = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresGarminSessions(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void save(String username, String handle) {
+        jdbcTemplate.update(SAVE, username, handle);
+    }
+
+    public Optional<String> find(String username, Duration maxIdle) {
+        return jdbcTemplate.queryForList(FIND, String.class, username, (double) maxIdle.toSeconds()).stream().findFirst();
+    }
+
+    /**
+     * Marks the sessions of {@code usernames} as in use.
+     *
+     * @return the current handle of each of those users that still has a session
+     */
+    public Map<String, String> touch(Collection<String> usernames) {
+        Map<String, String> current = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(TOUCH);
+            statement.setArray(1, connection.createArrayOf("varchar", usernames.toArray()));
+            return statement;
+        }, rs -> {
+            current.put(rs.getString("username"), rs.getString("handle"));
+        });
+        return current;
+    }
+
+    public void delete(String username) {
+        jdbcTemplate.update(DELETE, username);
+    }
+}
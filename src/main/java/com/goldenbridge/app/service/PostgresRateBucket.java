@@ -0,0 +1,124 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.config.GarminRateLimitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@link RateBucket} kept in a {@code garmin_rate_limit_buckets} row, so every application
+ * instance draws from, and slows down with, the same budget.
+ * <p>
+ * Each operation is one atomic {@code UPDATE} that refills the bucket from the time elapsed
+ * since {@code updated_at} (by the database clock, so instance clocks do not matter) and applies
+ * the same AIMD rules as {@link AimdTokenBucket}. That costs one database round trip per bridge
+ * call, which is small next to the Garmin call it paces. If the database cannot be reached the
+ * bucket falls back to pacing this instance alone rather than blocking all Garmin traffic.
+ * <pre>
+ * CREATE TABLE garmin_rate_limit_buckets (
+ *     name             VARCHAR(100) PRIMARY KEY,
+ *     tokens           DOUBLE PRECISION NOT NULL,
+ *     rate             DOUBLE PRECISION NOT NULL,
+ *     updated_at       TIMESTAMPTZ NOT NULL,
+ *     last_decrease_at TIMESTAMPTZ
+ * );
+ * </pre>
+ */
+public class PostgresRateBucket implements RateBucket {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresRateBucket.class);
+
+    private static final String ELAPSED = "GREATEST(EXTRACT(EPOCH FROM now() - updated_at)::float8, 0)";
+
+    private static final String INSERT = "INSERT INTO garmin_rate_limit_buckets (name, tokens, rate, updated_at) "
+            + "VALUES (?, ?, ?, now()) ON CONFLICT (name) DO NOTHING";
+
+    private static final String RESERVE = "UPDATE garmin_rate_limit_buckets SET "
+            + "tokens = LEAST(?, tokens + rate * " + ELAPSED + ") - 1, "
+            + "rate = LEAST(?, rate + ? * " + ELAPSED + "), "
+            + "updated_at = GREATEST(now(), updated_at) "
+            + "WHERE name = ? RETURNING tokens, rate";
+
+    private static final String REFUND = "UPDATE garmin_rate_limit_buckets SET tokens = LEAST(?, tokens + 1) WHERE name = ?";
+
+    private static final String THROTTLED = "UPDATE garmin_rate_limit_buckets SET "
+            + "rate = GREATEST(?, rate * ?), tokens = LEAST(tokens, 0), last_decrease_at = now() "
+            + "WHERE name = ? AND (last_decrease_at IS NULL OR last_decrease_at < now() - make_interval(secs => ?))";
+
+    private static final String RATE = "SELECT LEAST(?, rate + ? * " + ELAPSED + ") FROM garmin_rate_limit_buckets WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String name;
+    private final GarminRateLimitProperties.Bucket limits;
+    private final double decreaseFactor;
+    private final double recoveryPerSecond;
+    private final RateBucket fallback;
+    private volatile boolean initialised;
+
+    public PostgresRateBucket(JdbcTemplate jdbcTemplate, String name, GarminRateLimitProperties.Bucket limits,
+                              double decreaseFactor, Duration recoveryTime) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.name = name;
+        this.limits = limits;
+        this.decreaseFactor = decreaseFactor;
+        this.recoveryPerSecond = (limits.getMaxRate() - limits.getMinRate()) / Math.max(recoveryTime.toMillis() / 1000d, 0.001);
+        this.fallback = new AimdTokenBucket(limits, decreaseFactor, recoveryTime);
+    }
+
+    @Override
+    public Duration reserve() {
+        try {
+            ensureRow();
+            List<double[]> rows = jdbcTemplate.query(RESERVE,
+                    (rs, rowNum) -> new double[]{rs.getDouble("tokens"), rs.getDouble("rate")},
+                    limits.getBurst(), limits.getMaxRate(), recoveryPerSecond, name);
+            double tokens = rows.get(0)[0];
+            double rate = rows.get(0)[1];
+            return tokens >= 0 ? Duration.ZERO : Duration.ofNanos((long) (-tokens / rate * 1_000_000_000d));
+        } catch (DataAccessException e) {
+            logger.warn("Shared rate limit bucket {} unavailable, pacing locally: {}", name, e.getMessage());
+            return fallback.reserve();
+        }
+    }
+
+    @Override
+    public void refund() {
+        try {
+            jdbcTemplate.update(REFUND, limits.getBurst(), name);
+        } catch (DataAccessException e) {
+            fallback.refund();
+        }
+    }
+
+    @Override
+    public void throttled() {
+        fallback.throttled();
+        try {
+            jdbcTemplate.update(THROTTLED, limits.getMinRate(), decreaseFactor, name,
+                    AimdTokenBucket.DECREASE_COOLDOWN.toMillis() / 1000d);
+        } catch (DataAccessException e) {
+            logger.warn("Could not record throttling on shared rate limit bucket {}: {}", name, e.getMessage());
+        }
+    }
+
+    @Override
+    public double rate() {
+        try {
+            Double rate = jdbcTemplate.queryForObject(RATE, Double.class, limits.getMaxRate(), recoveryPerSecond, name);
+            return rate == null ? limits.getMaxRate() : rate;
+        } catch (DataAccessException e) {
+            return fallback.rate();
+        }
+    }
+
+    private void ensureRow() {
+        if (!initialised) {
+            jdbcTemplate.update(INSERT, name, limits.getBurst(), limits.getMaxRate());
+            initialised = true;
+        }
+    }
+}
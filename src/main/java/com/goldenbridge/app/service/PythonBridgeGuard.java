@@ -0,0 +1,82 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.config.GarminRateLimitConfig;
+import com.goldenbridge.app.exception.GarminBridgeUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.function.Supplier;
+
+/**
+ * Every call to the Python bridge passes through here.
+ * <p>
+ * A dedicated bulkhead caps how many request threads can be waiting on the bridge at once, so
+ * a hung Python process cannot drain Tomcat's pool and take down unrelated endpoints. The circuit
+ * breaker outside it trips on timeouts, connection failures and 5xx responses and then rejects
+ * calls immediately until the bridge recovers. Both are configured under
+ * {@code resilience4j.*.instances.pythonBridge}; breaker state is exported through the
+ * {@code resilience4j.circuitbreaker.*} metrics and the {@code circuitBreakers} health component.
+ * <p>
+ * Calls that reach Garmin itself go through {@link #call(String, Supplier)}, which first waits
+ * for a {@link GarminRateLimiter} slot. The wait happens before the bulkhead so paced callers do
+ * not hold bulkhead permits, and a 429 from the bridge slows the limiter down; the breaker
+ * ignores 4xx responses, so throttling never opens the circuit.
+ */
+@Component
+public class PythonBridgeGuard {
+
+    public static final String INSTANCE_NAME = "pythonBridge";
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final GarminRateLimiter rateLimiter;
+
+    public PythonBridgeGuard(CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry) {
+        this(circuitBreakerRegistry, bulkheadRegistry, GarminRateLimitConfig.unlimited());
+    }
+
+    @Autowired
+    public PythonBridgeGuard(CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry,
+                             GarminRateLimiter rateLimiter) {
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(INSTANCE_NAME);
+        this.bulkhead = bulkheadRegistry.bulkhead(INSTANCE_NAME);
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Guards a bridge call that is forwarded to Garmin on behalf of {@code sessionHandle}
+     * ({@code null} for the legacy shared session).
+     */
+    public <T> T call(String sessionHandle, Supplier<T> garminCall) {
+        rateLimiter.acquire(sessionHandle);
+        try {
+            return call(garminCall);
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            rateLimiter.onThrottled(sessionHandle);
+            throw e;
+        }
+    }
+
+    public <T> T call(Supplier<T> bridgeCall) {
+        Supplier<T> guarded = CircuitBreaker.decorateSupplier(circuitBreaker,
+                Bulkhead.decorateSupplier(bulkhead, bridgeCall));
+        try {
+            return guarded.get();
+        } catch (CallNotPermittedException e) {
+            throw new GarminBridgeUnavailableException("Python bridge circuit is open; failing fast", e);
+        } catch (BulkheadFullException e) {
+            throw new GarminBridgeUnavailableException("Too many concurrent Python bridge calls", e);
+        }
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return circuitBreaker.getState();
+    }
+}
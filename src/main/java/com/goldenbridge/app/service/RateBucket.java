@@ -0,0 +1,33 @@
+package com.goldenbridge.app.service;
+
+import java.time.Duration;
+
+/**
+ * A token bucket whose refill rate adapts to throttling (AIMD).
+ * <p>
+ * Tokens are reserved rather than polled: {@link #reserve} always takes a token, possibly
+ * driving the bucket into debt, and returns how long the caller must wait before using it.
+ * Waiting callers are therefore served in reservation order at exactly the current rate.
+ */
+public interface RateBucket {
+
+    /**
+     * Takes one token and returns how long to wait before the call it pays for may start.
+     */
+    Duration reserve();
+
+    /**
+     * Returns a reserved token that will not be used, e.g. because the wait was too long.
+     */
+    void refund();
+
+    /**
+     * Garmin throttled a call: cut the rate multiplicatively and drop any saved-up burst.
+     */
+    void throttled();
+
+    /**
+     * Current refill rate in requests per second.
+     */
+    double rate();
+}
@@ -0,0 +1,62 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.repository.ActivityRawPayloadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Moves raw payloads still stored inline in {@code activities.raw_data} into the compressed
+ * {@code activity_raw_payloads} table, a small batch per transaction, while the application keeps
+ * serving: each batch locks only its own rows and skips rows a sync holds.
+ * <p>
+ * Batches walk the activity ids upwards from where the previous one stopped, so no batch rescans
+ * rows already moved. Once a pass finds nothing left the job goes idle until the next restart.
+ */
+@Component
+public class RawPayloadBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(RawPayloadBackfill.class);
+
+    private final ActivityRawPayloadRepository rawPayloads;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private long lastMovedId;
+    private long moved;
+    private boolean finished;
+
+    public RawPayloadBackfill(ActivityRawPayloadRepository rawPayloads, PlatformTransactionManager transactionManager,
+                              @Value("${garmin.raw-payload.backfill-batch-size:200}") int batchSize) {
+        this.rawPayloads = rawPayloads;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${garmin.raw-payload.backfill-interval:5s}")
+    public void moveNextBatch() {
+        if (finished) {
+            return;
+        }
+        List<Long> ids = transactionTemplate.execute(status -> rawPayloads.migrateInlinePayloads(lastMovedId, batchSize));
+        if (ids == null || ids.isEmpty()) {
+            finished = true;
+            if (moved > 0) {
+                logger.info("Raw payload backfill finished: moved {} inline payloads", moved);
+            }
+            return;
+        }
+        lastMovedId = ids.get(ids.size() - 1);
+        moved += ids.size();
+        logger.debug("Moved {} inline raw payloads up to activity {}", ids.size(), lastMovedId);
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+}
@@ -0,0 +1,49 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.entity.SyncHistory;
+import com.goldenbridge.app.repository.SyncHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Takes over sync runs whose owning instance stopped heartbeating.
+ * <p>
+ * Polls every {@code garmin.sync.lease.reap-interval} for unfinished runs with a lapsed lease,
+ * claims each one with a compare-and-set on the lease so only one surviving instance wins it,
+ * and hands it to {@link GarminSyncOrchestrator#resumeSync}. A crashed instance's users are
+ * therefore unblocked within one lease duration plus one reap interval.
+ */
+@Service
+public class StuckSyncReaper {
+
+    private static final Logger logger = LoggerFactory.getLogger(StuckSyncReaper.class);
+
+    private final SyncHistoryRepository syncHistoryRepository;
+    private final SyncLeaseManager syncLeases;
+    private final GarminSyncOrchestrator garminSyncOrchestrator;
+
+    public StuckSyncReaper(SyncHistoryRepository syncHistoryRepository, SyncLeaseManager syncLeases,
+                           GarminSyncOrchestrator garminSyncOrchestrator) {
+        this.syncHistoryRepository = syncHistoryRepository;
+        this.syncLeases = syncLeases;
+        this.garminSyncOrchestrator = garminSyncOrchestrator;
+    }
+
+    @Scheduled(fixedDelayString = "${garmin.sync.lease.reap-interval:5s}", initialDelayString = "${garmin.sync.lease.duration:30s}")
+    public void reapExpiredLeases() {
+        List<SyncHistory> expired = syncHistoryRepository.findRunsWithExpiredLease(LocalDateTime.now());
+        for (SyncHistory run : expired) {
+            if (!syncLeases.tryTakeOver(run.getId())) {
+                continue;
+            }
+            logger.warn("Took over sync run {} for {} from {} (last heartbeat {})", run.getId(),
+                    run.getUser().getUsername(), run.getLeaseOwner(), run.getHeartbeatAt());
+            garminSyncOrchestrator.resumeSync(run);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.repository.SyncHistoryRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cooperative cancellation of running syncs.
+ * <p>
+ * A cancel request is recorded on the run's {@code sync_history} row, so it reaches the run
+ * whichever instance holds its lease. The holder learns about it immediately when the request
+ * arrives on the same instance, and otherwise from a poll over the runs it holds every
+ * {@code garmin.sync.cancel-poll-interval}. {@link GarminSyncService} checks {@link #isRequested}
+ * before each page and, once cancelled, ends the run as {@code CANCELLED} keeping every page
+ * already written. {@link PendingActivityWorker} takes {@link #detailFetchStopChecks} once per
+ * claimed batch, so no detail is fetched for a user while their run is being cancelled.
+ */
+@Component
+public class SyncCancellations {
+
+    private final SyncHistoryRepository syncHistoryRepository;
+    private final SyncLeaseManager syncLeases;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> cancelledRunIds = ConcurrentHashMap.newKeySet();
+
+    public SyncCancellations(SyncHistoryRepository syncHistoryRepository, SyncLeaseManager syncLeases,
+                             PlatformTransactionManager transactionManager) {
+        this.syncHistoryRepository = syncHistoryRepository;
+        this.syncLeases = syncLeases;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Asks the run to stop at its next checkpoint.
+     *
+     * @return {@code false} if the run had already finished or been cancelled
+     */
+    public boolean request(Long runId) {
+        Integer updated = transactionTemplate.execute(status ->
+                syncHistoryRepository.requestCancellation(runId, LocalDateTime.now()));
+        if (updated == null || updated == 0) {
+            return false;
+        }
+        if (syncLeases.isHeld(runId)) {
+            cancelledRunIds.add(runId);
+        }
+        return true;
+    }
+
+    public boolean isRequested(Long runId) {
+        return cancelledRunIds.contains(runId);
+    }
+
+    /**
+     * Stop checks for fetching the details of the given users' activities, from one read of
+     * {@code sync_history}. A user whose unfinished run has been asked to cancel, on any instance,
+     * gets a check that has already fired. For a user whose run is still going the check follows
+     * {@link #isRequested} for that run, which costs no query. Users without an unfinished run
+     * are absent: nothing stops their fetches.
+     */
+    public Map<String, BooleanSupplier> detailFetchStopChecks(Collection<String> usernames) {
+        List<Object[]> runs = transactionTemplate.execute(status -> syncHistoryRepository.findUnfinishedRunsByUsernames(usernames));
+        Map<String, BooleanSupplier> checks = new HashMap<>();
+        if (runs == null) {
+            return checks;
+        }
+        for (Object[] run : runs) {
+            Long runId = (Long) run[1];
+            BooleanSupplier check = run[2] != null ? () -> true : () -> isRequested(runId);
+            checks.merge((String) run[0], check, (first, second) -> () -> first.getAsBoolean() || second.getAsBoolean());
+        }
+        return checks;
+    }
+
+    /**
+     * Forgets a run that has finished.
+     */
+    public void clear(Long runId) {
+        cancelledRunIds.remove(runId);
+    }
+
+    @Scheduled(fixedDelayString = "${garmin.sync.cancel-poll-interval:2s}")
+    public void pollRequests() {
+        Set<Long> held = syncLeases.heldRunIds();
+        cancelledRunIds.retainAll(held);
+        Set<Long> unknown = held.stream().filter(id -> !cancelledRunIds.contains(id)).collect(Collectors.toSet());
+        if (unknown.isEmpty()) {
+            return;
+        }
+        List<Long> requested = transactionTemplate.execute(status -> syncHistoryRepository.findCancellationRequested(unknown));
+        if (requested != null) {
+            cancelledRunIds.addAll(requested);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.entity.SyncHistory;
+import com.goldenbridge.app.repository.SyncHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Leases on {@link SyncHistory} runs owned by this instance.
+ * <p>
+ * A run is leased to the instance that starts it for {@code garmin.sync.lease.duration}, and
+ * every {@code heartbeat-interval} the lease of each run still held here is pushed forward. If
+ * the instance dies, its leases lapse within one lease duration and {@link StuckSyncReaper} on a
+ * surviving instance takes the runs over. A renewal that finds the row owned by someone else
+ * means the lease was lost (typically after a long pause); the run is dropped from this
+ * instance and {@link GarminSyncService} abandons it at its next page without writing a result.
+ */
+@Component
+public class SyncLeaseManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncLeaseManager.class);
+
+    private final SyncHistoryRepository syncHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String instanceId;
+    private final Duration leaseDuration;
+    private final Set<Long> heldRunIds = ConcurrentHashMap.newKeySet();
+
+    public SyncLeaseManager(SyncHistoryRepository syncHistoryRepository, PlatformTransactionManager transactionManager,
+                            @Value("${garmin.sync.lease.instance-id:}") String instanceId,
+                            @Value("${garmin.sync.lease.duration:30s}") Duration leaseDuration,
+                            @Value("${garmin.sync.lease.heartbeat-interval:10s}") Duration heartbeatInterval) {
+        if (leaseDuration.compareTo(heartbeatInterval.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("garmin.sync.lease.duration must be at least twice the heartbeat-interval");
+        }
+        this.syncHistoryRepository = syncHistoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.instanceId = instanceId == null || instanceId.isBlank() ? defaultInstanceId() : instanceId;
+        this.leaseDuration = leaseDuration;
+    }
+
+    public String instanceId() {
+        return instanceId;
+    }
+
+    /**
+     * Stamps a not-yet-saved run with a lease owned by this instance; call {@link #hold} once it has an id.
+     */
+    public void stamp(SyncHistory history) {
+        LocalDateTime now = LocalDateTime.now();
+        history.setLeaseOwner(instanceId);
+        history.setHeartbeatAt(now);
+        history.setLeaseExpiresAt(now.plus(leaseDuration));
+    }
+
+    public void hold(Long runId) {
+        heldRunIds.add(runId);
+    }
+
+    public boolean isHeld(Long runId) {
+        return heldRunIds.contains(runId);
+    }
+
+    /**
+     * Runs currently leased to this instance.
+     */
+    public Set<Long> heldRunIds() {
+        return Set.copyOf(heldRunIds);
+    }
+
+    /**
+     * Stops renewing the lease; the run has finished, so the reaper ignores it from here on.
+     */
+    public void release(Long runId) {
+        heldRunIds.remove(runId);
+    }
+
+    /**
+     * Claims the expired lease of a run abandoned by another instance.
+     *
+     * @return whether this instance won the run
+     */
+    public boolean tryTakeOver(Long runId) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = transactionTemplate.execute(status ->
+                syncHistoryRepository.takeOverExpiredLease(runId, instanceId, now, now.plus(leaseDuration)));
+        if (updated == null || updated == 0) {
+            return false;
+        }
+        heldRunIds.add(runId);
+        return true;
+    }
+
+    @Scheduled(fixedRateString = "${garmin.sync.lease.heartbeat-interval:10s}")
+    public void heartbeat() {
+        for (Long runId : heldRunIds) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                Integer renewed = transactionTemplate.execute(status ->
+                        syncHistoryRepository.renewLease(runId, instanceId, now, now.plus(leaseDuration)));
+                if (renewed == null || renewed == 0) {
+                    heldRunIds.remove(runId);
+                    logger.warn("Lost the lease on sync run {}; another instance has taken it over", runId);
+                }
+            } catch (RuntimeException e) {
+                // Keep the run: the next heartbeat may get through before the lease lapses
+                logger.warn("Heartbeat for sync run {} failed: {}", runId, e.getMessage());
+            }
+        }
+    }
+
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown-host";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
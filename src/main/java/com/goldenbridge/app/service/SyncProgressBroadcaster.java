@@ -0,0 +1,169 @@
+package com.goldenbridge.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Pushes {@link GarminSyncProgressEvent}s to the owning user's open {@code /api/sync/progress}
+ * streams.
+ * <p>
+ * Progress is kept in memory only: the latest event per user is held for
+ * {@code garmin.sync.progress.retention}, replayed to new subscribers, and no subscriber ever
+ * causes a database query. An idle SSE connection holds no thread (the servlet request is async),
+ * so thousands of open streams cost only their sockets and emitters.
+ * <p>
+ * The sync thread never writes to a socket. An event only replaces the user's latest snapshot and
+ * marks the user dirty; a small delivery pool then sends the newest snapshot to that user's
+ * streams. Updates that arrive while a delivery is pending are coalesced, so a slow client delays
+ * only its own user's streams and never the sync. Heartbeats go through the same pool. Streams
+ * that fail to accept a write are dropped, and a periodic comment line keeps idle streams alive
+ * through proxies and detects closed ones.
+ * <p>
+ * Events only reach subscribers connected to the instance running the sync.
+ */
+@Component
+public class SyncProgressBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncProgressBroadcaster.class);
+
+    static final String EVENT_NAME = "progress";
+
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Set<String> pendingDelivery = ConcurrentHashMap.newKeySet();
+    private final Cache<String, GarminSyncProgressEvent> latest;
+    private final TaskExecutor deliveryExecutor;
+    private final Supplier<SseEmitter> emitterFactory;
+
+    @Autowired
+    public SyncProgressBroadcaster(@Qualifier("syncProgressExecutor") TaskExecutor deliveryExecutor,
+                                   @Value("${garmin.sync.progress.emitter-timeout:30m}") Duration emitterTimeout,
+                                   @Value("${garmin.sync.progress.retention:10m}") Duration retention) {
+        this(deliveryExecutor, () -> new SseEmitter(emitterTimeout.toMillis()), retention);
+    }
+
+    SyncProgressBroadcaster(TaskExecutor deliveryExecutor, Supplier<SseEmitter> emitterFactory, Duration retention) {
+        this.deliveryExecutor = deliveryExecutor;
+        this.emitterFactory = emitterFactory;
+        this.latest = Caffeine.newBuilder()
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    /**
+     * Opens a progress stream for {@code username}, starting with their latest known progress.
+     */
+    public SseEmitter subscribe(String username) {
+        SseEmitter emitter = emitterFactory.get();
+        subscribers.compute(username, (key, emitters) -> {
+            Set<SseEmitter> updated = emitters == null ? ConcurrentHashMap.newKeySet() : emitters;
+            updated.add(emitter);
+            return updated;
+        });
+        emitter.onCompletion(() -> unsubscribe(username, emitter));
+        emitter.onTimeout(() -> unsubscribe(username, emitter));
+        emitter.onError(e -> unsubscribe(username, emitter));
+        GarminSyncProgressEvent current = latest.getIfPresent(username);
+        if (current != null) {
+            send(username, emitter, current);
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onProgress(GarminSyncProgressEvent event) {
+        latest.put(event.username(), event);
+        if (subscribers.containsKey(event.username()) && pendingDelivery.add(event.username())) {
+            try {
+                deliveryExecutor.execute(() -> deliver(event.username()));
+            } catch (RejectedExecutionException e) {
+                pendingDelivery.remove(event.username());
+                logger.debug("Progress delivery for {} rejected; the next event will retry", event.username());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${garmin.sync.progress.heartbeat-interval:15s}",
+            initialDelayString = "${garmin.sync.progress.heartbeat-interval:15s}")
+    public void heartbeat() {
+        for (String username : subscribers.keySet()) {
+            try {
+                deliveryExecutor.execute(() -> keepAlive(username));
+            } catch (RejectedExecutionException e) {
+                logger.debug("Progress heartbeat for {} rejected", username);
+            }
+        }
+    }
+
+    int subscriberCount(String username) {
+        Set<SseEmitter> emitters = subscribers.get(username);
+        return emitters == null ? 0 : emitters.size();
+    }
+
+    private void deliver(String username) {
+        // Cleared before reading, so an event arriving mid-delivery schedules another round
+        pendingDelivery.remove(username);
+        GarminSyncProgressEvent event = latest.getIfPresent(username);
+        Set<SseEmitter> emitters = subscribers.get(username);
+        if (event == null || emitters == null) {
+            return;
+        }
+        emitters.forEach(emitter -> send(username, emitter, event));
+    }
+
+    private void keepAlive(String username) {
+        Set<SseEmitter> emitters = subscribers.get(username);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | IllegalStateException e) {
+                drop(username, emitter, e);
+            }
+        }
+    }
+
+    private void send(String username, SseEmitter emitter, GarminSyncProgressEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .id(event.syncId() + ":" + event.at().toEpochMilli())
+                    .data(event, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            drop(username, emitter, e);
+        }
+    }
+
+    private void drop(String username, SseEmitter emitter, Exception cause) {
+        logger.debug("Dropping progress stream for {}: {}", username, cause.getMessage());
+        unsubscribe(username, emitter);
+        emitter.completeWithError(cause);
+    }
+
+    private void unsubscribe(String username, SseEmitter emitter) {
+        subscribers.computeIfPresent(username, (key, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
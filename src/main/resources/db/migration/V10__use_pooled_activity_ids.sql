@@ -0,0 +1,11 @@
+-- Activity ids come from a sequence in blocks of 50 instead of an identity column, so Hibernate's
+-- pooled optimizer can batch inserts and ActivityBulkRepositoryImpl can draw ids for a whole chunk
+-- in one round trip. Dropping the identity also drops its implicit sequence.
+
+ALTER TABLE activities ALTER COLUMN id DROP IDENTITY;
+
+CREATE SEQUENCE activities_id_seq INCREMENT BY 50;
+
+-- The pooled optimizer hands out the 50 ids up to each value it draws, so start a block above
+-- the highest id already used
+SELECT setval('activities_id_seq', COALESCE(MAX(id), 0) + 50) FROM activities;
@@ -0,0 +1,112 @@
+-- Activities, range-partitioned by month of activity_date.
+--
+-- Date-range queries on activity_date only touch the months they cover, and a month of old
+-- data can be detached (ALTER TABLE ... DETACH PARTITION ... CONCURRENTLY) without rewriting
+-- anything. Every unique key of a partitioned table must include the partition key, so the
+-- primary key is (id, activity_date) and garmin_activity_id is unique per activity_date.
+-- Activities older than 2024 share one archive partition; monthly partitions from there on are
+-- created here up to three months ahead, or up to the latest stored activity, and kept ahead by
+-- ActivityPartitionMaintainer.
+--
+-- A table cannot be partitioned in place, so the existing one is renamed, its rows are copied
+-- into the partitioned table and it is dropped. This runs in the migration's transaction and
+-- holds an exclusive lock on activities until the copy is done.
+
+ALTER TABLE activities RENAME TO activities_unpartitioned;
+
+-- Index names are unique per schema, and the new table reuses these
+DROP INDEX idx_activities_pending, idx_activities_retry_due, idx_activities_in_progress;
+
+CREATE TABLE activities (
+    id                    BIGINT       NOT NULL,
+    garmin_activity_id    VARCHAR(255) NOT NULL,
+    user_id               BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    activity_name         VARCHAR(255) NOT NULL,
+    activity_type         VARCHAR(50),
+    activity_date         TIMESTAMP(6) NOT NULL,
+    duration_seconds      INTEGER,
+    distance_meters       NUMERIC(10, 2),
+    calories              INTEGER,
+    average_heart_rate    INTEGER,
+    max_heart_rate        INTEGER,
+    average_power         INTEGER,
+    max_power             INTEGER,
+    elevation_gain_meters NUMERIC(8, 2),
+    average_speed_kmh     NUMERIC(6, 2),
+    max_speed_kmh         NUMERIC(6, 2),
+    raw_data              TEXT,
+    detail_data           TEXT,
+    fit_file_path         VARCHAR(255),
+    gpx_file_path         VARCHAR(255),
+    data_hash             VARCHAR(64),
+    sync_status           VARCHAR(20)  NOT NULL DEFAULT 'PENDING'
+        CHECK (sync_status IN ('PENDING', 'IN_PROGRESS', 'COMPLETED', 'FAILED', 'SKIPPED')),
+    sync_error            TEXT,
+    last_sync_attempt     TIMESTAMP(6),
+    sync_attempts         INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at       TIMESTAMP(6),
+    golden_cheetah_path   VARCHAR(255),
+    created_at            TIMESTAMP(6) NOT NULL,
+    updated_at            TIMESTAMP(6),
+    CONSTRAINT pk_activities PRIMARY KEY (id, activity_date),
+    CONSTRAINT uk_activities_garmin_id_date UNIQUE (garmin_activity_id, activity_date)
+) PARTITION BY RANGE (activity_date);
+
+-- Per-user timelines and date-range queries
+CREATE INDEX idx_activities_user_date ON activities (user_id, activity_date);
+
+-- The PENDING work queue, in PendingActivityWorker's claim order
+CREATE INDEX idx_activities_pending ON activities (last_sync_attempt NULLS FIRST, activity_date)
+    WHERE sync_status = 'PENDING';
+
+-- Failed activities waiting out their backoff (ActivityRetryScheduler)
+CREATE INDEX idx_activities_retry_due ON activities (next_attempt_at)
+    WHERE sync_status = 'FAILED';
+
+-- Claims abandoned by a crashed worker
+CREATE INDEX idx_activities_in_progress ON activities (last_sync_attempt)
+    WHERE sync_status = 'IN_PROGRESS';
+
+CREATE TABLE activities_archive PARTITION OF activities FOR VALUES FROM (MINVALUE) TO ('2024-01-01');
+
+-- Creates the missing monthly partitions activities_YYYY_MM for every month from from_month
+-- through to_month and returns how many it created.
+CREATE FUNCTION ensure_activity_partitions(from_month DATE, to_month DATE) RETURNS INTEGER
+LANGUAGE plpgsql AS $$
+DECLARE
+    month_start DATE := date_trunc('month', from_month)::date;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    WHILE month_start <= to_month LOOP
+        partition_name := 'activities_' || to_char(month_start, 'YYYY_MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF activities FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, month_start, (month_start + INTERVAL '1 month')::date);
+            created := created + 1;
+        END IF;
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+    RETURN created;
+END;
+$$;
+
+SELECT ensure_activity_partitions(DATE '2024-01-01', GREATEST(
+    (date_trunc('month', now()) + INTERVAL '3 months')::date,
+    (SELECT MAX(activity_date)::date FROM activities_unpartitioned)));
+
+-- Columns are listed because the old table has them in the order they were added
+INSERT INTO activities (
+    id, garmin_activity_id, user_id, activity_name, activity_type, activity_date, duration_seconds,
+    distance_meters, calories, average_heart_rate, max_heart_rate, average_power, max_power,
+    elevation_gain_meters, average_speed_kmh, max_speed_kmh, raw_data, detail_data, fit_file_path,
+    gpx_file_path, data_hash, sync_status, sync_error, last_sync_attempt, sync_attempts,
+    next_attempt_at, golden_cheetah_path, created_at, updated_at)
+SELECT id, garmin_activity_id, user_id, activity_name, activity_type, activity_date, duration_seconds,
+       distance_meters, calories, average_heart_rate, max_heart_rate, average_power, max_power,
+       elevation_gain_meters, average_speed_kmh, max_speed_kmh, raw_data, detail_data, fit_file_path,
+       gpx_file_path, data_hash, sync_status, sync_error, last_sync_attempt, sync_attempts,
+       next_attempt_at, golden_cheetah_path, created_at, updated_at
+FROM activities_unpartitioned;
+
+DROP TABLE activities_unpartitioned;
@@ -0,0 +1,18 @@
+-- Compressed raw Garmin payloads, moved out of activities.raw_data, see ActivityRawPayloadRepository.
+-- Existing inline payloads are moved in the background by RawPayloadBackfill, so this migration
+-- only creates the table and never rewrites activities.
+--
+-- Keyed by activity id alone: a foreign key would have to reference (id, activity_date), and a
+-- start time correction would then have to cascade into this table.
+
+CREATE TABLE activity_raw_payloads (
+    activity_id       BIGINT      PRIMARY KEY,
+    codec             VARCHAR(16) NOT NULL,
+    payload           BYTEA       NOT NULL,
+    uncompressed_size INTEGER     NOT NULL,
+    updated_at        TIMESTAMP   NOT NULL,
+    CONSTRAINT ck_activity_raw_payloads_codec CHECK (codec IN ('NONE', 'GZIP', 'DEFLATE'))
+);
+
+-- Payloads arrive compressed: store large ones out of line without a second, pointless pglz pass
+ALTER TABLE activity_raw_payloads ALTER COLUMN payload SET STORAGE EXTERNAL;
@@ -0,0 +1,44 @@
+-- Users and their per-user settings.
+
+CREATE TABLE users (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username     VARCHAR(50)  NOT NULL UNIQUE,
+    email        VARCHAR(255) NOT NULL UNIQUE,
+    password     VARCHAR(255) NOT NULL,
+    first_name   VARCHAR(50),
+    last_name    VARCHAR(50),
+    is_active    BOOLEAN      NOT NULL DEFAULT TRUE,
+    sync_enabled BOOLEAN      NOT NULL DEFAULT FALSE,
+    created_at   TIMESTAMP(6) NOT NULL,
+    updated_at   TIMESTAMP(6)
+);
+
+CREATE TABLE user_preferences (
+    id                    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id               BIGINT       NOT NULL UNIQUE REFERENCES users (id) ON DELETE CASCADE,
+    auto_sync_enabled     BOOLEAN      NOT NULL DEFAULT FALSE,
+    sync_frequency_hours  INTEGER      NOT NULL DEFAULT 24,
+    sync_activity_types   VARCHAR(255),
+    golden_cheetah_path   VARCHAR(255),
+    notifications_enabled BOOLEAN      NOT NULL DEFAULT TRUE,
+    email_notifications   BOOLEAN      NOT NULL DEFAULT FALSE,
+    max_sync_days         INTEGER      NOT NULL DEFAULT 30,
+    timezone              VARCHAR(50),
+    created_at            TIMESTAMP(6) NOT NULL,
+    updated_at            TIMESTAMP(6)
+);
+
+-- The scheduler only ever looks for users with auto-sync on
+CREATE INDEX idx_user_preferences_auto_sync ON user_preferences (user_id) WHERE auto_sync_enabled;
+
+CREATE TABLE garmin_credentials (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id            BIGINT       NOT NULL UNIQUE REFERENCES users (id) ON DELETE CASCADE,
+    garmin_username    VARCHAR(255) NOT NULL,
+    encrypted_password TEXT         NOT NULL,
+    is_valid           BOOLEAN      NOT NULL DEFAULT FALSE,
+    last_validated_at  TIMESTAMP(6),
+    validation_error   TEXT,
+    created_at         TIMESTAMP(6) NOT NULL,
+    updated_at         TIMESTAMP(6)
+);
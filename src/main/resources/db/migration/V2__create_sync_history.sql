@@ -0,0 +1,22 @@
+-- One row per sync run.
+
+CREATE TABLE sync_history (
+    id                   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id              BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    sync_type            VARCHAR(20)  NOT NULL
+        CHECK (sync_type IN ('MANUAL', 'SCHEDULED', 'PARTIAL', 'FULL_RESYNC')),
+    sync_status          VARCHAR(20)  NOT NULL
+        CHECK (sync_status IN ('STARTED', 'IN_PROGRESS', 'COMPLETED', 'FAILED', 'CANCELLED')),
+    sync_started_at      TIMESTAMP(6) NOT NULL,
+    sync_completed_at    TIMESTAMP(6),
+    activities_processed INTEGER DEFAULT 0,
+    activities_synced    INTEGER DEFAULT 0,
+    activities_skipped   INTEGER DEFAULT 0,
+    activities_failed    INTEGER DEFAULT 0,
+    error_message        TEXT,
+    sync_details         TEXT,
+    created_at           TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_sync_history_user_date ON sync_history (user_id, sync_started_at);
+CREATE INDEX idx_sync_history_status ON sync_history (sync_status);
@@ -0,0 +1,34 @@
+-- Activities imported from Garmin, one row per Garmin activity.
+
+CREATE TABLE activities (
+    id                    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    garmin_activity_id    VARCHAR(255) NOT NULL UNIQUE,
+    user_id               BIGINT       NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    activity_name         VARCHAR(255) NOT NULL,
+    activity_type         VARCHAR(50),
+    activity_date         TIMESTAMP(6) NOT NULL,
+    duration_seconds      INTEGER,
+    distance_meters       NUMERIC(10, 2),
+    calories              INTEGER,
+    average_heart_rate    INTEGER,
+    max_heart_rate        INTEGER,
+    average_power         INTEGER,
+    max_power             INTEGER,
+    elevation_gain_meters NUMERIC(8, 2),
+    average_speed_kmh     NUMERIC(6, 2),
+    max_speed_kmh         NUMERIC(6, 2),
+    raw_data              TEXT,
+    fit_file_path         VARCHAR(255),
+    gpx_file_path         VARCHAR(255),
+    data_hash             VARCHAR(64),
+    sync_status           VARCHAR(20)  NOT NULL DEFAULT 'PENDING'
+        CHECK (sync_status IN ('PENDING', 'IN_PROGRESS', 'COMPLETED', 'FAILED', 'SKIPPED')),
+    sync_error            TEXT,
+    last_sync_attempt     TIMESTAMP(6),
+    golden_cheetah_path   VARCHAR(255),
+    created_at            TIMESTAMP(6) NOT NULL,
+    updated_at            TIMESTAMP(6)
+);
+
+CREATE INDEX idx_activity_user_date ON activities (user_id, activity_date);
+CREATE INDEX idx_activity_sync_status ON activities (sync_status);
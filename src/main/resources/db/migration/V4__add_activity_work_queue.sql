@@ -0,0 +1,12 @@
+-- PENDING activities are drained as a SKIP LOCKED work queue by PendingActivityWorker, which
+-- stores the fetched detail payload next to the summary.
+
+ALTER TABLE activities ADD COLUMN detail_data TEXT;
+
+-- The PENDING work queue, in PendingActivityWorker's claim order
+CREATE INDEX idx_activities_pending ON activities (last_sync_attempt NULLS FIRST, activity_date)
+    WHERE sync_status = 'PENDING';
+
+-- Claims abandoned by a crashed worker
+CREATE INDEX idx_activities_in_progress ON activities (last_sync_attempt)
+    WHERE sync_status = 'IN_PROGRESS';
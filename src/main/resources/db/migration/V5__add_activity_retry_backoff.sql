@@ -0,0 +1,9 @@
+-- Failed activities are retried with jittered exponential backoff (ActivityRetryScheduler).
+
+ALTER TABLE activities
+    ADD COLUMN sync_attempts   INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN next_attempt_at TIMESTAMP(6);
+
+-- Failed activities waiting out their backoff
+CREATE INDEX idx_activities_retry_due ON activities (next_attempt_at)
+    WHERE sync_status = 'FAILED';
@@ -0,0 +1,12 @@
+-- Sync runs are leased to the instance running them and kept alive by heartbeats; StuckSyncReaper
+-- takes over runs whose lease has lapsed. The lease columns are written only by targeted UPDATEs
+-- (see SyncHistoryRepository).
+
+ALTER TABLE sync_history
+    ADD COLUMN lease_owner      VARCHAR(100),
+    ADD COLUMN lease_expires_at TIMESTAMP(6),
+    ADD COLUMN heartbeat_at     TIMESTAMP(6);
+
+-- StuckSyncReaper polls every few seconds for unfinished runs with a lapsed lease
+CREATE INDEX idx_sync_history_running_lease ON sync_history (lease_expires_at)
+    WHERE sync_status IN ('STARTED', 'IN_PROGRESS');
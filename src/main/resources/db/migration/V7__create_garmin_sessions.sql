@@ -0,0 +1,9 @@
+-- Current Garmin bridge session handle per user (garmin.sessions.shared), see PostgresGarminSessions.
+-- Lets any instance find a user's session, so runs and queued activities of a crashed instance can
+-- be picked up by the others.
+
+CREATE TABLE garmin_sessions (
+    username     VARCHAR(50) PRIMARY KEY,
+    handle       VARCHAR(64) NOT NULL,
+    last_used_at TIMESTAMPTZ NOT NULL
+);
@@ -0,0 +1,9 @@
+-- Shared Garmin rate limit buckets (garmin.rate-limit.shared), see PostgresRateBucket.
+
+CREATE TABLE garmin_rate_limit_buckets (
+    name             VARCHAR(100)     PRIMARY KEY,
+    tokens           DOUBLE PRECISION NOT NULL,
+    rate             DOUBLE PRECISION NOT NULL,
+    updated_at       TIMESTAMPTZ      NOT NULL,
+    last_decrease_at TIMESTAMPTZ
+);
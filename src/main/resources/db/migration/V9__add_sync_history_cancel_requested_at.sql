@@ -0,0 +1,4 @@
+-- Cooperative cancellation of running syncs. Written only by
+-- SyncHistoryRepository#requestCancellation, like the lease columns.
+
+ALTER TABLE sync_history ADD COLUMN cancel_requested_at TIMESTAMP(6);
@@ -0,0 +1,97 @@
+package com.goldenbridge.app.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PythonServiceClientConfigTest {
+
+    private static final String ACTIVITIES_JSON = "[{\"activityId\":1,\"activityName\":\"Morning Ride\"}]";
+
+    private final AtomicReference<String> receivedAcceptEncoding = new AtomicReference<>();
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Behaves like the bridge: gzip only when the client asks for it
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/garmin/activities", exchange -> {
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            receivedAcceptEncoding.set(acceptEncoding);
+            byte[] body = ACTIVITIES_JSON.getBytes(StandardCharsets.UTF_8);
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                body = gzip(body);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void pythonServiceHttpClient_shouldRequestAndInflateGzipResponses() throws IOException {
+        // Given
+        PythonServiceProperties properties = new PythonServiceProperties();
+
+        // When
+        String body = fetchActivities(properties);
+
+        // Then
+        assertThat(receivedAcceptEncoding.get()).contains("gzip");
+        assertThat(body).isEqualTo(ACTIVITIES_JSON);
+    }
+
+    @Test
+    void pythonServiceHttpClient_shouldFallBackToPlainJsonWhenCompressionIsOff() throws IOException {
+        // Given
+        PythonServiceProperties properties = new PythonServiceProperties();
+        properties.setCompression(false);
+
+        // When
+        String body = fetchActivities(properties);
+
+        // Then
+        assertThat(receivedAcceptEncoding.get()).isNull();
+        assertThat(body).isEqualTo(ACTIVITIES_JSON);
+    }
+
+    private String fetchActivities(PythonServiceProperties properties) throws IOException {
+        PythonServiceClientConfig config = new PythonServiceClientConfig();
+        PoolingHttpClientConnectionManager connectionManager = config.pythonServiceConnectionManager(properties);
+        try (CloseableHttpClient httpClient = config.pythonServiceHttpClient(connectionManager, properties)) {
+            RestTemplate restTemplate = new RestTemplate(config.pythonServiceRequestFactory(httpClient));
+            return restTemplate.getForObject("http://localhost:" + server.getAddress().getPort() + "/garmin/activities", String.class);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -1,9 +1,12 @@
 package com.goldenbridge.app.config;
 
+import com.goldenbridge.app.repository.ActivityRawPayloadRepository;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.context.annotation.Import;
 
+// ActivityRawPayloadRepository is plain JDBC, so the JPA test slice does not pick it up, but the
+// ActivityRepository fragment needs it
 @Configuration
-@EnableJpaAuditing
+@Import({JpaConfig.class, ActivityRawPayloadRepository.class})
 public class TestJpaConfig {
 }
@@ -0,0 +1,75 @@
+package com.goldenbridge.app.controller;
+
+import com.goldenbridge.app.dto.GarminLoginRequest;
+import com.goldenbridge.app.dto.GarminLoginResponse;
+import com.goldenbridge.app.security.JwtTokenProvider;
+import com.goldenbridge.app.service.GarminActivityCache;
+import com.goldenbridge.app.service.GarminIntegrationService;
+import com.goldenbridge.app.service.GarminSessionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+
+import java.security.Principal;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthControllerTest {
+
+    private static final Principal ALICE = () -> "alice";
+    private static final GarminLoginRequest LOGIN = new GarminLoginRequest("alice@garmin", "secret");
+
+    private GarminIntegrationService garminIntegrationService;
+    private GarminSessionRegistry garminSessionRegistry;
+    private AuthController authController;
+    private String currentHandle;
+
+    @BeforeEach
+    void setUp() {
+        garminIntegrationService = mock(GarminIntegrationService.class);
+        garminSessionRegistry = new GarminSessionRegistry(Duration.ofMinutes(30), 100);
+        authController = new AuthController(mock(AuthenticationManager.class), mock(JwtTokenProvider.class),
+                garminIntegrationService, mock(GarminActivityCache.class), garminSessionRegistry);
+        currentHandle = garminSessionRegistry.newHandle();
+        garminSessionRegistry.activate("alice", currentHandle);
+    }
+
+    @Test
+    void garminLogin_shouldKeepWorkingSessionWhenLoginFails() {
+        // Given
+        when(garminIntegrationService.loginToGarmin(anyString(), any()))
+                .thenReturn(new GarminLoginResponse("error", "Invalid credentials"));
+
+        // When
+        ResponseEntity<GarminLoginResponse> response = authController.garminLogin(LOGIN, ALICE);
+
+        // Then
+        assertThat(response.getStatusCode().value()).isEqualTo(401);
+        assertThat(garminSessionRegistry.findSession("alice")).contains(currentHandle);
+        verify(garminIntegrationService, never()).logoutFromGarmin(anyString());
+    }
+
+    @Test
+    void garminLogin_shouldSwapInNewSessionAndLogOutReplacedOne() {
+        // Given
+        when(garminIntegrationService.loginToGarmin(argThat(handle -> !currentHandle.equals(handle)), any()))
+                .thenReturn(new GarminLoginResponse("success", "Garmin login successful"));
+
+        // When
+        ResponseEntity<GarminLoginResponse> response = authController.garminLogin(LOGIN, ALICE);
+
+        // Then
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(garminSessionRegistry.findSession("alice")).isPresent().get().isNotEqualTo(currentHandle);
+        verify(garminIntegrationService).logoutFromGarmin(currentHandle);
+    }
+}
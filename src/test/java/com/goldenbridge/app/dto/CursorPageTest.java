@@ -0,0 +1,44 @@
+package com.goldenbridge.app.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CursorPageTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 9, 1, 7, 0);
+
+    @Test
+    void of_shouldPointNextCursorAtLastRowWhenMoreRowsExist() {
+        // Given: limit + 1 rows fetched
+        List<Long> rows = List.of(5L, 4L, 3L);
+
+        // When
+        CursorPage<String> page = CursorPage.of(rows, 2, id -> new PageCursor(START, id), String::valueOf);
+
+        // Then
+        assertThat(page.items()).containsExactly("5", "4");
+        assertThat(PageCursor.decode(page.nextCursor())).isEqualTo(new PageCursor(START, 4L));
+    }
+
+    @Test
+    void of_shouldEndOnShortPage() {
+        // When
+        CursorPage<String> page = CursorPage.of(List.of(2L, 1L), 2, id -> new PageCursor(START, id), String::valueOf);
+
+        // Then
+        assertThat(page.items()).containsExactly("2", "1");
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void clampLimit_shouldKeepLimitWithinBounds() {
+        // Given / When / Then
+        assertThat(CursorPage.clampLimit(0)).isEqualTo(1);
+        assertThat(CursorPage.clampLimit(50)).isEqualTo(50);
+        assertThat(CursorPage.clampLimit(1_000)).isEqualTo(CursorPage.MAX_LIMIT);
+    }
+}
@@ -0,0 +1,47 @@
+package com.goldenbridge.app.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void decode_shouldRestoreEncodedCursor() {
+        // Given
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2025, 9, 1, 7, 0, 12, 345_000_000), 42L);
+
+        // When
+        String token = cursor.encode();
+
+        // Then
+        assertThat(token).doesNotContain("=", "+", "/");
+        assertThat(PageCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void decode_shouldRejectMalformedTokens() {
+        // Given
+        String notBase64 = "not a cursor!";
+        String noSeparator = encoded("2025-09-01T07:00");
+        String badDate = encoded("yesterday|42");
+        String badId = encoded("2025-09-01T07:00|forty-two");
+
+        // When / Then
+        assertThatThrownBy(() -> PageCursor.decode(notBase64)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.decode(noSeparator)).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Malformed page cursor");
+        assertThatThrownBy(() -> PageCursor.decode(badDate)).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Malformed page cursor");
+        assertThatThrownBy(() -> PageCursor.decode(badId)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String encoded(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
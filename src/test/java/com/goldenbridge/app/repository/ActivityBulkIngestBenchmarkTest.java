@@ -0,0 +1,147 @@
+package com.goldenbridge.app.repository;
+
+import com.goldenbridge.app.config.TestJpaConfig;
+import com.goldenbridge.app.entity.Activity;
+import com.goldenbridge.app.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rows per second for three ways of writing one import of activities: the per-row save loop
+ * (one INSERT round trip per activity, as IDENTITY ids forced), JPA {@code saveAll} with pooled
+ * sequence ids and Hibernate JDBC batching, and the {@link ActivityBulkRepository#upsertAll}
+ * path. Run with {@code mvn test -Pbenchmark}; needs Docker. Fails if {@code upsertAll} is not
+ * at least {@value #MIN_UPSERT_SPEEDUP} times as fast as the save loop.
+ */
+@Tag("benchmark")
+@Testcontainers
+@DataJpaTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+@Import(TestJpaConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ActivityBulkIngestBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityBulkIngestBenchmarkTest.class);
+
+    private static final int ROWS = 500;
+    private static final int ROUNDS = 5;
+    // The save loop pays a round trip per row, upsertAll one per chunk; a margin this wide only
+    // trips when batching stops working, not on a noisy machine
+    private static final double MIN_UPSERT_SPEEDUP = 3.0;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl() + "&reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User user;
+    private int nextGarminId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        activityRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        user = userRepository.save(new User("bench", "bench@example.com", "password"));
+    }
+
+    @Test
+    void upsertAll_shouldIngestFasterThanSaveLoop() {
+        // Given: one warm-up round per path so connection setup and JIT do not count
+        saveLoop(batch());
+        saveAll(batch());
+        upsertAll(batch());
+
+        // When
+        double saveLoopRate = rowsPerSecond(() -> saveLoop(batch()));
+        double saveAllRate = rowsPerSecond(() -> saveAll(batch()));
+        double upsertRate = rowsPerSecond(() -> upsertAll(batch()));
+
+        // Then
+        logger.info("save loop: {} rows/s, batched saveAll: {} rows/s, upsertAll: {} rows/s",
+                Math.round(saveLoopRate), Math.round(saveAllRate), Math.round(upsertRate));
+        assertThat(activityRepository.count()).isEqualTo((long) ROWS * (ROUNDS + 1) * 3);
+        assertThat(upsertRate / saveLoopRate)
+                .as("upsertAll speed-up over the save loop")
+                .isGreaterThanOrEqualTo(MIN_UPSERT_SPEEDUP);
+    }
+
+    private double rowsPerSecond(Runnable round) {
+        long started = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            round.run();
+        }
+        return ROWS * ROUNDS / ((System.nanoTime() - started) / 1_000_000_000d);
+    }
+
+    private void saveLoop(List<Activity> activities) {
+        transactionTemplate.executeWithoutResult(status -> activities.forEach(activityRepository::saveAndFlush));
+    }
+
+    private void saveAll(List<Activity> activities) {
+        transactionTemplate.executeWithoutResult(status -> activityRepository.saveAll(activities));
+    }
+
+    private void upsertAll(List<Activity> activities) {
+        Map<String, String> rawPayloads = activities.stream().collect(Collectors.toMap(
+                Activity::getGarminActivityId, activity -> "{\"activityId\":" + activity.getGarminActivityId() + "}"));
+        transactionTemplate.executeWithoutResult(status -> activityRepository.upsertAll(activities, rawPayloads));
+    }
+
+    private List<Activity> batch() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 7, 0);
+        List<Activity> activities = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            int garminId = nextGarminId++;
+            Activity activity = new Activity(String.valueOf(garminId), "Ride " + garminId, start.plusHours(garminId), user);
+            activity.setActivityType("cycling");
+            activity.setDurationSeconds(3600);
+            activity.setDataHash(Integer.toHexString(garminId));
+            activities.add(activity);
+        }
+        return activities;
+    }
+}
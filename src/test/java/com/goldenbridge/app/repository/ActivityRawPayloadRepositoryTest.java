@@ -0,0 +1,226 @@
+package com.goldenbridge.app.repository;
+
+import com.goldenbridge.app.config.TestJpaConfig;
+import com.goldenbridge.app.entity.Activity;
+import com.goldenbridge.app.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers
+@DataJpaTest
+@Import(TestJpaConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ActivityRawPayloadRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    private static final LocalDateTime SEPTEMBER = LocalDateTime.of(2025, 9, 14, 7, 30);
+    private static final LocalDateTime OCTOBER = LocalDateTime.of(2025, 10, 2, 18, 0);
+
+    @Autowired
+    private ActivityRawPayloadRepository rawPayloads;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM activity_raw_payloads");
+        activityRepository.deleteAll();
+        userRepository.deleteAll();
+        testUser = userRepository.save(new User("testuser", "test@example.com", "password"));
+    }
+
+    @Test
+    void whenUpsertAllWithPayload_thenPayloadIsStoredCompressedAndStreamsBack() {
+        // Given
+        String payload = "{\"activityId\":1001,\"samples\":[1,2,3]}";
+        Activity activity = new Activity("1001", "Morning Run", SEPTEMBER, testUser);
+
+        // When
+        activityRepository.upsertAll(List.of(activity), Map.of("1001", payload));
+
+        // Then
+        Long id = storedId("1001");
+        assertThat(rawPayloads.hasRawData(id)).isTrue();
+        assertThat(stream(id)).isEqualTo(payload);
+        Integer size = jdbcTemplate.queryForObject(
+                "SELECT uncompressed_size FROM activity_raw_payloads WHERE activity_id = ?", Integer.class, id);
+        assertThat(size).isEqualTo(payload.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void whenUpsertAllAgain_thenPayloadIsReplaced() {
+        // Given
+        Activity activity = new Activity("1001", "Morning Run", SEPTEMBER, testUser);
+        activityRepository.upsertAll(List.of(activity), Map.of("1001", "{\"v\":1}"));
+
+        // When
+        activityRepository.upsertAll(List.of(new Activity("1001", "Morning Run", SEPTEMBER, testUser)),
+                Map.of("1001", "{\"v\":2}"));
+
+        // Then
+        assertThat(stream(storedId("1001"))).isEqualTo("{\"v\":2}");
+    }
+
+    @Test
+    void whenActivityHasNoPayload_thenNothingIsFound() {
+        // Given
+        activityRepository.upsertAll(List.of(new Activity("1001", "Morning Run", SEPTEMBER, testUser)), Map.of());
+        Long id = storedId("1001");
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean found = rawPayloads.streamRawData(id, out);
+
+        // Then
+        assertThat(found).isFalse();
+        assertThat(out.size()).isZero();
+        assertThat(rawPayloads.hasRawData(id)).isFalse();
+    }
+
+    @Test
+    void whenPayloadIsStillInline_thenItIsReadFromActivities() {
+        // Given
+        Long id = storeInline("1001", SEPTEMBER, "{\"inline\":true}");
+
+        // When / Then
+        assertThat(rawPayloads.hasRawData(id)).isTrue();
+        assertThat(stream(id)).isEqualTo("{\"inline\":true}");
+    }
+
+    @Test
+    void whenMigratingInlinePayloads_thenTheyMoveToTheSideTableInBatches() {
+        // Given
+        Long first = storeInline("1001", SEPTEMBER, "{\"n\":1}");
+        Long second = storeInline("1002", OCTOBER, "{\"n\":2}");
+
+        // When
+        List<Long> firstBatch = rawPayloads.migrateInlinePayloads(0, 1);
+        List<Long> secondBatch = rawPayloads.migrateInlinePayloads(firstBatch.get(0), 1);
+        List<Long> done = rawPayloads.migrateInlinePayloads(secondBatch.get(0), 1);
+
+        // Then
+        assertThat(firstBatch).containsExactly(Math.min(first, second));
+        assertThat(secondBatch).containsExactly(Math.max(first, second));
+        assertThat(done).isEmpty();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM activities WHERE raw_data IS NOT NULL", Integer.class)).isZero();
+        assertThat(stream(first)).isEqualTo("{\"n\":1}");
+        assertThat(stream(second)).isEqualTo("{\"n\":2}");
+    }
+
+    @Test
+    void whenMigratingOverANewerPayload_thenTheNewerPayloadIsKept() {
+        // Given
+        Long id = storeInline("1001", SEPTEMBER, "{\"v\":\"inline\"}");
+        rawPayloads.saveAll(List.of(activityRepository.findById(id).orElseThrow()), Map.of("1001", "{\"v\":\"synced\"}"));
+
+        // When
+        rawPayloads.migrateInlinePayloads(0, 10);
+
+        // Then
+        assertThat(stream(id)).isEqualTo("{\"v\":\"synced\"}");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT raw_data FROM activities WHERE id = ?", String.class, id)).isNull();
+    }
+
+    @Test
+    void whenActivitiesAreDeleted_thenOrphanSweepRemovesOnlyTheirPayloads() {
+        // Given
+        activityRepository.upsertAll(List.of(
+                new Activity("1001", "Morning Run", SEPTEMBER, testUser),
+                new Activity("1002", "Evening Ride", OCTOBER, testUser),
+                new Activity("1003", "Swim", OCTOBER.plusDays(1), testUser)),
+                Map.of("1001", "{}", "1002", "{}", "1003", "{}"));
+        Long kept = storedId("1002");
+        jdbcTemplate.update("DELETE FROM activities WHERE garmin_activity_id IN ('1001', '1003')");
+
+        // When
+        ActivityRawPayloadRepository.OrphanSweep firstStep = rawPayloads.deleteOrphans(0, 2);
+        ActivityRawPayloadRepository.OrphanSweep secondStep = rawPayloads.deleteOrphans(firstStep.lastActivityId(), 2);
+        ActivityRawPayloadRepository.OrphanSweep lastStep = rawPayloads.deleteOrphans(secondStep.lastActivityId(), 2);
+
+        // Then
+        assertThat(firstStep.deleted() + secondStep.deleted()).isEqualTo(2);
+        assertThat(lastStep.lastActivityId()).isNull();
+        assertThat(lastStep.deleted()).isZero();
+        assertThat(jdbcTemplate.queryForList("SELECT activity_id FROM activity_raw_payloads", Long.class))
+                .containsExactly(kept);
+    }
+
+    @Test
+    void whenArchivingAPartition_thenItsPayloadsMoveToTheMonthTable() {
+        // Given
+        activityRepository.upsertAll(List.of(
+                new Activity("1001", "Morning Run", SEPTEMBER, testUser),
+                new Activity("1002", "Evening Ride", OCTOBER, testUser)),
+                Map.of("1001", "{\"month\":9}", "1002", "{\"month\":10}"));
+        Long september = storedId("1001");
+        Long october = storedId("1002");
+
+        // When
+        int moved = rawPayloads.archiveForPartition(YearMonth.of(2025, 9));
+
+        // Then
+        assertThat(moved).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForList("SELECT activity_id FROM activity_raw_payloads_2025_09", Long.class))
+                .containsExactly(september);
+        assertThat(jdbcTemplate.queryForList("SELECT activity_id FROM activity_raw_payloads", Long.class))
+                .containsExactly(october);
+        assertThat(rawPayloads.archiveForPartition(YearMonth.of(2025, 9))).isZero();
+    }
+
+    private Long storedId(String garminActivityId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT id FROM activities WHERE garmin_activity_id = ?", Long.class, garminActivityId);
+    }
+
+    private Long storeInline(String garminActivityId, LocalDateTime activityDate, String rawData) {
+        activityRepository.upsertAll(List.of(new Activity(garminActivityId, "Activity " + garminActivityId, activityDate, testUser)), Map.of());
+        Long id = storedId(garminActivityId);
+        jdbcTemplate.update("UPDATE activities SET raw_data = ? WHERE id = ?", rawData, id);
+        return id;
+    }
+
+    private String stream(Long activityId) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(rawPayloads.streamRawData(activityId, out)).isTrue();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
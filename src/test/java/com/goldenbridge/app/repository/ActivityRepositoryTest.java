@@ -1,6 +1,7 @@
 package com.goldenbridge.app.repository;
 
 import com.goldenbridge.app.config.TestJpaConfig;
+import com.goldenbridge.app.dto.ActivitySummaryResponse;
 import com.goldenbridge.app.entity.Activity;
 import com.goldenbridge.app.entity.User;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -17,6 +19,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -81,4 +84,42 @@ class ActivityRepositoryTest {
         // Then
         assertThat(activities).hasSize(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenPagingByKeyset_thenEveryActivityIsReturnedOnceNewestFirst() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 7, 0);
+        activityRepository.save(new Activity("garmin1", "Ride 1", start, testUser));
+        activityRepository.save(new Activity("garmin2", "Ride 2", start, testUser));
+        activityRepository.save(new Activity("garmin3", "Ride 3", start.plusDays(1), testUser));
+
+        // When
+        List<ActivitySummaryResponse> firstPage = activityRepository.findFirstPageByUser(testUser, PageRequest.ofSize(2));
+        ActivitySummaryResponse last = firstPage.get(firstPage.size() - 1);
+        List<ActivitySummaryResponse> secondPage = activityRepository.findPageByUserAfter(testUser, last.activityDate(), last.id(),
+                PageRequest.ofSize(2));
+
+        // Then
+        assertThat(firstPage).extracting(ActivitySummaryResponse::activityDate).containsExactly(start.plusDays(1), start);
+        assertThat(secondPage).hasSize(1);
+        assertThat(secondPage.get(0).activityDate()).isEqualTo(start);
+        assertThat(secondPage.get(0).id()).isLessThan(last.id());
+    }
+
+    @Test
+    void whenUpsertingActivityBeyondCreatedPartitions_thenPartitionIsCreatedAndRowStored() {
+        // Given: V11 and the partition maintainer only create months up to a few months ahead
+        LocalDateTime farFuture = LocalDateTime.now().plusYears(5);
+        Activity activity = new Activity("garmin-future", "Wrong device clock", farFuture, testUser);
+        activity.setDataHash("hash");
+
+        // When
+        activityRepository.upsertAll(List.of(activity,
+                new Activity("garmin-archive", "Old ride", LocalDateTime.of(2021, 6, 1, 7, 0), testUser)), Map.of());
+
+        // Then
+        assertThat(activityRepository.findByUser(testUser))
+                .extracting(Activity::getGarminActivityId)
+                .containsExactlyInAnyOrder("garmin-future", "garmin-archive");
+    }
+}
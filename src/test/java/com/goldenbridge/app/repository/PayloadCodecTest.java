@@ -0,0 +1,43 @@
+package com.goldenbridge.app.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayloadCodecTest {
+
+    private static final byte[] PAYLOAD = "{\"activityId\":1,\"samples\":[1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1]}"
+            .repeat(50).getBytes(StandardCharsets.UTF_8);
+
+    @ParameterizedTest
+    @EnumSource(PayloadCodec.class)
+    void decompressing_shouldStreamBackTheEncodedPayload(PayloadCodec codec) throws IOException {
+        // Given
+        byte[] stored = codec.encode(PAYLOAD);
+
+        // When
+        byte[] read;
+        try (InputStream in = codec.decompressing(new ByteArrayInputStream(stored))) {
+            read = in.readAllBytes();
+        }
+
+        // Then
+        assertThat(read).isEqualTo(PAYLOAD);
+        assertThat(codec.decode(stored)).isEqualTo(PAYLOAD);
+    }
+
+    @Test
+    void encode_shouldShrinkRepetitiveJsonWhenCompressing() {
+        // Given / When / Then
+        assertThat(PayloadCodec.NONE.encode(PAYLOAD)).hasSize(PAYLOAD.length);
+        assertThat(PayloadCodec.GZIP.encode(PAYLOAD).length).isLessThan(PAYLOAD.length / 10);
+        assertThat(PayloadCodec.DEFLATE.encode(PAYLOAD).length).isLessThan(PAYLOAD.length / 10);
+    }
+}
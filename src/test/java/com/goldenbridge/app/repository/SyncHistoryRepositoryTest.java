@@ -9,12 +9,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -81,4 +85,32 @@ class SyncHistoryRepositoryTest {
         assertThat(syncHistories).hasSize(2);
         assertThat(syncHistories.get(0).getSyncStartedAt()).isAfter(syncHistories.get(1).getSyncStartedAt());
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenPagingByKeyset_thenEveryRunIsReturnedOnceNewestFirstAcrossTies() {
+        // Given: three runs started at the same instant and one later
+        LocalDateTime start = LocalDateTime.of(2025, 9, 1, 7, 0);
+        List<Long> tied = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            tied.add(syncHistoryRepository.save(run(start)).getId());
+        }
+        Long latest = syncHistoryRepository.save(run(start.plusHours(1))).getId();
+
+        // When
+        List<SyncHistory> firstPage = syncHistoryRepository.findFirstPageByUser(testUser, PageRequest.ofSize(2));
+        SyncHistory last = firstPage.get(firstPage.size() - 1);
+        List<SyncHistory> secondPage = syncHistoryRepository.findPageByUserAfter(testUser, last.getSyncStartedAt(), last.getId(),
+                PageRequest.ofSize(2));
+
+        // Then
+        tied.sort(Comparator.reverseOrder());
+        assertThat(firstPage).extracting(SyncHistory::getId).containsExactly(latest, tied.get(0));
+        assertThat(secondPage).extracting(SyncHistory::getId).containsExactly(tied.get(1), tied.get(2));
+    }
+
+    private SyncHistory run(LocalDateTime startedAt) {
+        SyncHistory history = new SyncHistory(SyncHistory.SyncType.MANUAL, testUser);
+        history.setSyncStartedAt(startedAt);
+        return history;
+    }
+}
@@ -0,0 +1,38 @@
+package com.goldenbridge.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityDataHashTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void of_shouldIgnoreKeyOrderAndNumberFormatting() throws Exception {
+        // Given
+        String original = "{\"activityId\":1,\"distance\":1500.50,\"activityType\":{\"typeKey\":\"cycling\",\"typeId\":2}}";
+        String reserialised = "{\"activityType\":{\"typeId\":2,\"typeKey\":\"cycling\"},\"distance\":1500.5,\"activityId\":1}";
+
+        // When / Then
+        assertThat(ActivityDataHash.of(objectMapper.readTree(original)))
+                .isEqualTo(ActivityDataHash.of(objectMapper.readTree(reserialised)))
+                .hasSize(64);
+    }
+
+    @Test
+    void of_shouldChangeWhenAnyValueChanges() throws Exception {
+        // Given
+        String original = "{\"activityId\":1,\"activityName\":\"Morning Ride\",\"laps\":[1,2]}";
+        String renamed = "{\"activityId\":1,\"activityName\":\"Evening Ride\",\"laps\":[1,2]}";
+        String reordered = "{\"activityId\":1,\"activityName\":\"Morning Ride\",\"laps\":[2,1]}";
+
+        // When
+        String hash = ActivityDataHash.of(objectMapper.readTree(original));
+
+        // Then
+        assertThat(hash).isNotEqualTo(ActivityDataHash.of(objectMapper.readTree(renamed)));
+        assertThat(hash).isNotEqualTo(ActivityDataHash.of(objectMapper.readTree(reordered)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.repository.ActivityRawPayloadRepository;
+import com.goldenbridge.app.repository.ActivityRawPayloadRepository.OrphanSweep;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ActivityPartitionMaintainerTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2026-10-17T03:15:00Z"), ZoneOffset.UTC);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ActivityRawPayloadRepository rawPayloads = mock(ActivityRawPayloadRepository.class);
+
+    @Test
+    void detachExpiredPartitions_shouldDetachOnlyMonthsPastRetention() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "activities_archive", "activities_2025_09", "activities_2025_10", "activities_2025_11", "activities_2026_10"));
+        ActivityPartitionMaintainer maintainer = new ActivityPartitionMaintainer(jdbcTemplate, rawPayloads, 3, 12, 100, clock);
+
+        // When
+        List<String> detached = maintainer.detachExpiredPartitions();
+
+        // Then
+        assertThat(detached).containsExactly("activities_2025_09");
+        verify(jdbcTemplate).execute("ALTER TABLE activities DETACH PARTITION activities_2025_09 CONCURRENTLY");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE activities DETACH PARTITION activities_archive CONCURRENTLY");
+        verify(rawPayloads).archiveForPartition(YearMonth.of(2025, 9));
+        verify(rawPayloads, never()).archiveForPartition(YearMonth.of(2025, 10));
+    }
+
+    @Test
+    void deleteOrphanedPayloads_shouldWalkTheTableUntilNothingIsLeft() {
+        // Given
+        when(rawPayloads.deleteOrphans(0L, 100)).thenReturn(new OrphanSweep(150L, 3));
+        when(rawPayloads.deleteOrphans(150L, 100)).thenReturn(new OrphanSweep(220L, 0));
+        when(rawPayloads.deleteOrphans(220L, 100)).thenReturn(new OrphanSweep(null, 0));
+        ActivityPartitionMaintainer maintainer = new ActivityPartitionMaintainer(jdbcTemplate, rawPayloads, 3, 0, 100, clock);
+
+        // When
+        int deleted = maintainer.deleteOrphanedPayloads();
+
+        // Then
+        assertThat(deleted).isEqualTo(3);
+        verify(rawPayloads, times(3)).deleteOrphans(anyLong(), eq(100));
+    }
+
+    @Test
+    void partitionMonth_shouldParseMonthlyPartitionsOnly() {
+        // Given / When / Then
+        assertThat(ActivityPartitionMaintainer.partitionMonth("activities_2024_02")).contains(YearMonth.of(2024, 2));
+        assertThat(ActivityPartitionMaintainer.partitionMonth("activities_archive")).isEmpty();
+        assertThat(ActivityPartitionMaintainer.partitionMonth("activities_2024_13")).isEmpty();
+    }
+}
@@ -0,0 +1,49 @@
+package com.goldenbridge.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ActivityRetryPolicyTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 9, 1, 12, 0);
+
+    @Test
+    void delay_shouldDoubleWithEachAttemptUpToTheCap() {
+        // Given
+        ActivityRetryPolicy policy = new ActivityRetryPolicy(Duration.ofMinutes(1), Duration.ofMinutes(10), 20, () -> 1.0);
+
+        // When / Then
+        assertThat(policy.delay(1)).isEqualTo(Duration.ofMinutes(1));
+        assertThat(policy.delay(2)).isEqualTo(Duration.ofMinutes(2));
+        assertThat(policy.delay(4)).isEqualTo(Duration.ofMinutes(8));
+        assertThat(policy.delay(5)).isEqualTo(Duration.ofMinutes(10));
+        assertThat(policy.delay(64)).isEqualTo(Duration.ofMinutes(10));
+    }
+
+    @Test
+    void delay_shouldJitterWithinUpperHalfOfWindow() {
+        // Given
+        ActivityRetryPolicy earliest = new ActivityRetryPolicy(Duration.ofMinutes(1), Duration.ofHours(1), 20, () -> 0.0);
+        ActivityRetryPolicy random = new ActivityRetryPolicy(Duration.ofMinutes(1), Duration.ofHours(1), 20);
+
+        // When / Then
+        assertThat(earliest.delay(4)).isEqualTo(Duration.ofMinutes(4));
+        for (int i = 0; i < 100; i++) {
+            assertThat(random.delay(4)).isBetween(Duration.ofMinutes(4), Duration.ofMinutes(8));
+        }
+    }
+
+    @Test
+    void nextAttemptAt_shouldBeEmptyOnceAttemptsAreExhausted() {
+        // Given
+        ActivityRetryPolicy policy = new ActivityRetryPolicy(Duration.ofMinutes(1), Duration.ofHours(1), 3, () -> 1.0);
+
+        // When / Then
+        assertThat(policy.nextAttemptAt(2, NOW)).contains(NOW.plusMinutes(2));
+        assertThat(policy.nextAttemptAt(3, NOW)).isEmpty();
+    }
+}
@@ -0,0 +1,59 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.entity.Activity;
+import com.goldenbridge.app.entity.User;
+import com.goldenbridge.app.repository.ActivityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ActivityRetrySchedulerTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    private ActivityRepository activityRepository;
+    private ActivityRetryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        activityRepository = mock(ActivityRepository.class);
+        scheduler = new ActivityRetryScheduler(activityRepository, mock(PlatformTransactionManager.class), BATCH_SIZE);
+    }
+
+    @Test
+    void requeueDueRetries_shouldRequeueOneBoundedBatchOfDueActivities() {
+        // Given
+        User user = new User("alice", "alice@example.com", "secret");
+        Activity first = new Activity("1", "Ride 1", LocalDateTime.of(2025, 9, 1, 7, 0), user);
+        first.setId(10L);
+        Activity second = new Activity("2", "Ride 2", LocalDateTime.of(2025, 9, 2, 7, 0), user);
+        second.setId(11L);
+        when(activityRepository.lockDueRetries(any(LocalDateTime.class), eq(BATCH_SIZE))).thenReturn(List.of(first, second));
+
+        // When
+        scheduler.requeueDueRetries();
+
+        // Then
+        verify(activityRepository).requeueForRetry(List.of(10L, 11L));
+    }
+
+    @Test
+    void requeueDueRetries_shouldDoNothingWhenNothingIsDue() {
+        // When
+        scheduler.requeueDueRetries();
+
+        // Then
+        verify(activityRepository, never()).requeueForRetry(anyCollection());
+    }
+}
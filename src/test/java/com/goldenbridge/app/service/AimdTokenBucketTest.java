@@ -0,0 +1,74 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.config.GarminRateLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AimdTokenBucketTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AimdTokenBucket bucket = new AimdTokenBucket(new GarminRateLimitProperties.Bucket(4, 1, 2), 0.5,
+            Duration.ofSeconds(30), nanos::get);
+
+    @Test
+    void reserve_shouldQueueCallersBeyondBurstAtCurrentRate() {
+        // Given / When
+        Duration first = bucket.reserve();
+        Duration second = bucket.reserve();
+        Duration third = bucket.reserve();
+        Duration fourth = bucket.reserve();
+
+        // Then
+        assertThat(first).isZero();
+        assertThat(second).isZero();
+        assertThat(third).isEqualTo(Duration.ofMillis(250));
+        assertThat(fourth).isEqualTo(Duration.ofMillis(500));
+    }
+
+    @Test
+    void throttled_shouldHalveRateOncePerCooldownAndDropBurst() {
+        // Given
+        bucket.reserve();
+
+        // When
+        bucket.throttled();
+        bucket.throttled();
+
+        // Then
+        assertThat(bucket.rate()).isEqualTo(2.0);
+        assertThat(bucket.reserve()).isEqualTo(Duration.ofMillis(500));
+
+        // When
+        advance(Duration.ofSeconds(1));
+        bucket.throttled();
+
+        // Then: 2.0 plus a second of recovery at 0.1/s, halved
+        assertThat(bucket.rate()).isCloseTo(1.05, within(0.001));
+    }
+
+    @Test
+    void rate_shouldRecoverLinearlyToMaximum() {
+        // Given
+        bucket.throttled();
+        advance(Duration.ofSeconds(1));
+        bucket.throttled();
+
+        // When
+        advance(Duration.ofSeconds(15));
+        double midway = bucket.rate();
+        advance(Duration.ofMinutes(5));
+
+        // Then
+        assertThat(midway).isCloseTo(2.55, within(0.001));
+        assertThat(bucket.rate()).isEqualTo(4.0);
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+}
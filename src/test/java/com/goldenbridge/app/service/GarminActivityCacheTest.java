@@ -0,0 +1,80 @@
+package com.goldenbridge.app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GarminActivityCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private GarminActivityCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new GarminActivityCache(Duration.ofMinutes(1), DataSize.ofKilobytes(1), meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_shouldServeRepeatedPageFromCacheAndRecordHitsAndMisses() {
+        // When
+        String first = cache.get("alice", 0, 10, () -> "[page-" + loads.incrementAndGet() + "]");
+        String second = cache.get("alice", 0, 10, () -> "[page-" + loads.incrementAndGet() + "]");
+
+        // Then
+        assertThat(first).isEqualTo("[page-1]");
+        assertThat(second).isEqualTo("[page-1]");
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "garmin.activities").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "garmin.activities").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void get_shouldKeepUsersAndPagesApart() {
+        // When
+        cache.get("alice", 0, 10, () -> "alice-0-10");
+        cache.get("alice", 10, 10, () -> "alice-10-10");
+        String bob = cache.get("bob", 0, 10, () -> "bob-0-10");
+
+        // Then
+        assertThat(bob).isEqualTo("bob-0-10");
+        assertThat(cache.estimatedSize()).isEqualTo(3);
+    }
+
+    @Test
+    void get_shouldEvictByPayloadWeight() {
+        // Given
+        String largePage = "x".repeat(600);
+
+        // When
+        cache.get("alice", 0, 100, () -> largePage);
+        cache.get("alice", 100, 100, () -> largePage);
+
+        // Then
+        assertThat(cache.estimatedSize()).isEqualTo(1);
+    }
+
+    @Test
+    void onSyncCompleted_shouldInvalidateOnlyThatUsersPages() {
+        // Given
+        cache.get("alice", 0, 10, () -> "alice-old");
+        cache.get("bob", 0, 10, () -> "bob-old");
+
+        // When
+        cache.onSyncCompleted(new GarminSyncCompletedEvent(1L, "alice"));
+
+        // Then
+        assertThat(cache.get("alice", 0, 10, () -> "alice-new")).isEqualTo("alice-new");
+        assertThat(cache.get("bob", 0, 10, () -> "bob-new")).isEqualTo("bob-old");
+    }
+}
@@ -0,0 +1,125 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.dto.GarminActivityDetailResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GarminActivityDetailFetcherTest {
+
+    private static final int PARALLELISM = 3;
+    private static final String SESSION = "session-1";
+
+    private GarminIntegrationService garminIntegrationService;
+    private ThreadPoolTaskExecutor executor;
+    private GarminActivityDetailFetcher fetcher;
+
+    @BeforeEach
+    void setUp() {
+        garminIntegrationService = mock(GarminIntegrationService.class);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(10);
+        executor.initialize();
+        fetcher = new GarminActivityDetailFetcher(garminIntegrationService, executor, PARALLELISM);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void fetchDetails_shouldNeverExceedConfiguredParallelism() {
+        // Given
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(garminIntegrationService.getGarminActivityDetail(eq(SESSION), anyLong())).thenAnswer(invocation -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return "{\"activityId\":" + invocation.getArgument(1) + "}";
+        });
+        List<Long> ids = LongStream.rangeClosed(1, 20).boxed().toList();
+        List<GarminActivityDetailResult> results = new ArrayList<>();
+
+        // When
+        int delivered = fetcher.fetchDetails(SESSION, ids, results::add);
+
+        // Then
+        assertThat(delivered).isEqualTo(20);
+        assertThat(results).allMatch(GarminActivityDetailResult::succeeded);
+        assertThat(results).extracting(GarminActivityDetailResult::activityId).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(peak.get()).isLessThanOrEqualTo(PARALLELISM).isGreaterThan(1);
+    }
+
+    @Test
+    void fetchDetails_shouldIsolatePerItemFailures() {
+        // Given
+        when(garminIntegrationService.getGarminActivityDetail(eq(SESSION), anyLong())).thenAnswer(invocation -> {
+            long id = invocation.getArgument(1);
+            if (id == 2L) {
+                throw new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR, "Garmin unavailable");
+            }
+            return "{\"activityId\":" + id + "}";
+        });
+        List<GarminActivityDetailResult> results = new ArrayList<>();
+
+        // When
+        fetcher.fetchDetails(SESSION, List.of(1L, 2L, 3L), results::add);
+
+        // Then
+        assertThat(results).hasSize(3);
+        assertThat(results).filteredOn(result -> !result.succeeded())
+                .singleElement()
+                .satisfies(failure -> {
+                    assertThat(failure.activityId()).isEqualTo(2L);
+                    assertThat(failure.error()).contains("Garmin unavailable");
+                });
+    }
+
+    @Test
+    void fetchDetails_shouldIssueNoFurtherRequestOnceStopIsRequested() {
+        // Given
+        when(garminIntegrationService.getGarminActivityDetail(eq(SESSION), anyLong()))
+                .thenAnswer(invocation -> "{\"activityId\":" + invocation.getArgument(1) + "}");
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<GarminActivityDetailResult> results = new ArrayList<>();
+        List<Long> ids = LongStream.rangeClosed(1, 20).boxed().toList();
+
+        // When
+        int delivered = fetcher.fetchDetails(SESSION, ids, cancelled::get, result -> {
+            results.add(result);
+            cancelled.set(true);
+        });
+
+        // Then
+        assertThat(delivered).isEqualTo(results.size()).isLessThanOrEqualTo(PARALLELISM + 1);
+        verify(garminIntegrationService, atMost(PARALLELISM + 1)).getGarminActivityDetail(eq(SESSION), anyLong());
+    }
+
+    @Test
+    void fetchDetails_shouldReturnZeroForEmptyInput() {
+        // When
+        int delivered = fetcher.fetchDetails(SESSION, List.of(), result -> { });
+
+        // Then
+        assertThat(delivered).isZero();
+    }
+}
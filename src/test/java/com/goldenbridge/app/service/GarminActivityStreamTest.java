@@ -0,0 +1,140 @@
+package com.goldenbridge.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldenbridge.app.dto.GarminActivity;
+import com.goldenbridge.app.exception.GarminBridgeException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class GarminActivityStreamTest {
+
+    private MockRestServiceServer server;
+    private GarminIntegrationService garminIntegrationService;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        garminIntegrationService = new GarminIntegrationService(restTemplate, new ObjectMapper(),
+                new PythonBridgeGuard(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults()), "http://localhost:5001");
+    }
+
+    @Test
+    void streamGarminActivities_shouldWalkPagesUntilAShortPage() {
+        // Given
+        server.expect(requestTo("http://localhost:5001/garmin/activities?start=0&limit=2"))
+                .andRespond(withSuccess("[" + activityJson(3) + "," + activityJson(2) + "]", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://localhost:5001/garmin/activities?start=2&limit=2"))
+                .andRespond(withSuccess("[" + activityJson(1) + "]", MediaType.APPLICATION_JSON));
+        List<GarminActivity> received = new ArrayList<>();
+
+        // When
+        int total = garminIntegrationService.streamGarminActivities(2, received::add);
+
+        // Then
+        server.verify();
+        assertThat(total).isEqualTo(3);
+        assertThat(received).extracting(GarminActivity::activityId).containsExactly(3L, 2L, 1L);
+        GarminActivity first = received.get(0);
+        assertThat(first.activityName()).isEqualTo("Ride 3");
+        assertThat(first.activityType()).isEqualTo("cycling");
+        assertThat(first.startTimeLocal()).isEqualTo(LocalDateTime.of(2025, 9, 3, 7, 30));
+        assertThat(first.distanceMeters()).isEqualTo(42000.5);
+        assertThat(first.averageHeartRate()).isNull();
+        assertThat(first.raw().path("activityId").asLong()).isEqualTo(3L);
+    }
+
+    @Test
+    void streamGarminActivities_shouldStopOnEmptyPage() {
+        // Given
+        server.expect(requestTo("http://localhost:5001/garmin/activities?start=0&limit=5"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        // When
+        int total = garminIntegrationService.streamGarminActivities(5, activity -> { });
+
+        // Then
+        server.verify();
+        assertThat(total).isZero();
+    }
+
+    @Test
+    void streamGarminActivities_shouldSkipNullEntriesWithoutEndingTheWalk() {
+        // Given
+        server.expect(requestTo("http://localhost:5001/garmin/activities?start=0&limit=2"))
+                .andRespond(withSuccess("[null," + activityJson(3) + "]", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://localhost:5001/garmin/activities?start=2&limit=2"))
+                .andRespond(withSuccess("[" + activityJson(1) + "]", MediaType.APPLICATION_JSON));
+        List<GarminActivity> received = new ArrayList<>();
+
+        // When
+        int total = garminIntegrationService.streamGarminActivities(2, received::add);
+
+        // Then
+        server.verify();
+        assertThat(total).isEqualTo(2);
+        assertThat(received).extracting(GarminActivity::activityId).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void streamGarminActivityPage_shouldRejectNonObjectEntries() {
+        // Given
+        server.expect(requestTo("http://localhost:5001/garmin/activities?start=0&limit=10"))
+                .andRespond(withSuccess("[" + activityJson(2) + ",\"oops\"]", MediaType.APPLICATION_JSON));
+
+        // When / Then
+        assertThatThrownBy(() -> garminIntegrationService.streamGarminActivityPage(0, 10, activity -> { }))
+                .isInstanceOf(GarminBridgeException.class);
+    }
+
+    @Test
+    void streamGarminActivities_shouldSendSessionHandleWithEveryPage() {
+        // Given
+        server.expect(requestTo("http://localhost:5001/garmin/activities?start=0&limit=1"))
+                .andExpect(header(GarminIntegrationService.SESSION_HEADER, "session-1"))
+                .andRespond(withSuccess("[" + activityJson(2) + "]", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://localhost:5001/garmin/activities?start=1&limit=1"))
+                .andExpect(header(GarminIntegrationService.SESSION_HEADER, "session-1"))
+                .andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        // When
+        int total = garminIntegrationService.streamGarminActivities("session-1", 1, activity -> { });
+
+        // Then
+        server.verify();
+        assertThat(total).isEqualTo(1);
+    }
+
+    @Test
+    void streamGarminActivityPage_shouldRejectNonArrayPayload() {
+        // Given
+        server.expect(requestTo("http://localhost:5001/garmin/activities?start=0&limit=10"))
+                .andRespond(withSuccess("{\"status\":\"error\"}", MediaType.APPLICATION_JSON));
+
+        // When / Then
+        assertThatThrownBy(() -> garminIntegrationService.streamGarminActivityPage(0, 10, activity -> { }))
+                .isInstanceOf(GarminBridgeException.class);
+    }
+
+    private static String activityJson(long id) {
+        return "{\"activityId\":" + id + ",\"activityName\":\"Ride " + id + "\","
+                + "\"activityType\":{\"typeKey\":\"cycling\"},"
+                + "\"startTimeLocal\":\"2025-09-0" + id + " 07:30:00\","
+                + "\"duration\":3600.0,\"distance\":42000.5,\"calories\":900}";
+    }
+}
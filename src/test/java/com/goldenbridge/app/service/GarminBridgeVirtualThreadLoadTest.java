@@ -0,0 +1,169 @@
+package com.goldenbridge.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldenbridge.app.config.GarminBridgeExecutorConfig;
+import com.goldenbridge.app.config.PythonServiceProperties;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import com.goldenbridge.app.exception.GarminBridgeUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test comparing how many slow Garmin calls can be in flight at once on the
+ * platform-thread bridge executor versus the virtual-thread one, inside the same JVM heap, behind
+ * the {@code pythonBridge} bulkhead as configured by the {@code virtual-threads} profile and by
+ * default. Virtual threads need a Java 21+ runtime, so the test is skipped on the Java 17 build.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+class GarminBridgeVirtualThreadLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(GarminBridgeVirtualThreadLoadTest.class);
+
+    private static final String BULKHEAD = "resilience4j.bulkhead.instances.pythonBridge.";
+
+    private static final int CALLS = 2_000;
+    private static final int PLATFORM_THREADS = 200; // Tomcat's default server.tomcat.threads.max
+    private static final Duration GARMIN_LATENCY = Duration.ofMillis(500);
+
+    @Test
+    void virtualThreads_shouldKeepMoreGarminCallsInFlightThanPlatformPool() throws Exception {
+        // Given
+        GarminBridgeExecutorConfig config = new GarminBridgeExecutorConfig();
+        PythonServiceProperties properties = new PythonServiceProperties();
+        properties.getExecutor().setMaxThreads(PLATFORM_THREADS);
+        properties.getExecutor().setQueueCapacity(CALLS);
+        ThreadPoolTaskExecutor platform = (ThreadPoolTaskExecutor) config.platformGarminBridgeExecutor(properties);
+        platform.initialize();
+        AsyncTaskExecutor virtual = config.virtualGarminBridgeExecutor();
+        BulkheadConfig bulkhead = pythonBridgeBulkhead("application-virtual-threads.yml");
+
+        // When
+        LoadResult platformResult;
+        try {
+            platformResult = runLoad(platform, bulkhead);
+        } finally {
+            platform.shutdown();
+        }
+        LoadResult virtualResult = runLoad(virtual, bulkhead);
+
+        // Then
+        logger.info("platform: {}", platformResult);
+        logger.info("virtual: {}", virtualResult);
+        assertThat(platformResult.failed()).isZero();
+        assertThat(virtualResult.failed()).isZero();
+        assertThat(platformResult.peakInFlight()).isLessThanOrEqualTo(PLATFORM_THREADS);
+        assertThat(virtualResult.peakInFlight()).isGreaterThan(platformResult.peakInFlight() * 2)
+                .isLessThanOrEqualTo(bulkhead.getMaxConcurrentCalls());
+        assertThat(virtualResult.elapsed()).isLessThan(platformResult.elapsed());
+    }
+
+    @Test
+    void virtualThreads_shouldStayCappedByTheDefaultBulkhead() throws Exception {
+        // Given
+        AsyncTaskExecutor virtual = new GarminBridgeExecutorConfig().virtualGarminBridgeExecutor();
+        BulkheadConfig bulkhead = pythonBridgeBulkhead("application.yml");
+
+        // When
+        LoadResult result = runLoad(virtual, bulkhead);
+
+        // Then
+        logger.info("virtual, default bulkhead: {}", result);
+        assertThat(result.peakInFlight()).isEqualTo(bulkhead.getMaxConcurrentCalls());
+        assertThat(result.failed()).isPositive();
+    }
+
+    private static BulkheadConfig pythonBridgeBulkhead(String configFile) {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource(configFile));
+        Properties properties = yaml.getObject();
+        return BulkheadConfig.custom()
+                .maxConcurrentCalls(Integer.parseInt(properties.getProperty(BULKHEAD + "max-concurrent-calls")))
+                .maxWaitDuration(DurationStyle.detectAndParse(properties.getProperty(BULKHEAD + "max-wait-duration")))
+                .build();
+    }
+
+    private LoadResult runLoad(AsyncTaskExecutor executor, BulkheadConfig bulkhead) throws Exception {
+        SlowGarminRestTemplate restTemplate = new SlowGarminRestTemplate();
+        PythonBridgeGuard guard = new PythonBridgeGuard(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.of(bulkhead));
+        GarminIntegrationService service = new GarminIntegrationService(restTemplate, new ObjectMapper(), guard, "http://localhost:5001");
+
+        long started = System.nanoTime();
+        // Distinct activity ids, so single-flight coalescing does not collapse the calls
+        List<Future<String>> futures = new ArrayList<>(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            long activityId = i;
+            futures.add(executor.submit(() -> service.getGarminActivityDetail(activityId)));
+        }
+        int failed = 0;
+        for (Future<String> future : futures) {
+            try {
+                assertThat(future.get()).startsWith("{\"activityId\"");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(GarminBridgeUnavailableException.class);
+                failed++;
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        return new LoadResult(restTemplate.peakInFlight.get(), failed, elapsed, restTemplate.heapAtPeak.get());
+    }
+
+    private record LoadResult(int peakInFlight, int failed, Duration elapsed, long heapAtPeakBytes) {
+
+        @Override
+        public String toString() {
+            return "peak in-flight=" + peakInFlight + ", failed=" + failed + ", elapsed=" + elapsed.toMillis()
+                    + "ms, heap at peak=" + (heapAtPeakBytes >> 20) + "MB";
+        }
+    }
+
+    /**
+     * Stands in for the Python bridge: every call blocks for {@link #GARMIN_LATENCY}, like a
+     * real round trip to Garmin, while tracking how many calls are blocked at the same time.
+     */
+    private static class SlowGarminRestTemplate extends RestTemplate {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peakInFlight = new AtomicInteger();
+        private final AtomicLong heapAtPeak = new AtomicLong();
+
+        @Override
+        public <T> T getForObject(String url, Class<T> responseType, Object... uriVariables) {
+            int current = inFlight.incrementAndGet();
+            if (current > peakInFlight.getAndAccumulate(current, Math::max)) {
+                heapAtPeak.set(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+            }
+            try {
+                Thread.sleep(GARMIN_LATENCY.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            String activityId = url.substring(url.lastIndexOf('/') + 1);
+            return responseType.cast("{\"activityId\":" + activityId + "}");
+        }
+    }
+}
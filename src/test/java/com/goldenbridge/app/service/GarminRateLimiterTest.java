@@ -0,0 +1,87 @@
+package com.goldenbridge.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldenbridge.app.config.GarminRateLimitProperties;
+import com.goldenbridge.app.exception.GarminBridgeUnavailableException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class GarminRateLimiterTest {
+
+    private static final Duration RECOVERY = Duration.ofMinutes(2);
+
+    @Test
+    void acquire_shouldKeepOneUserFromDrainingOthers() {
+        // Given
+        GarminRateLimiter limiter = limiter(new GarminRateLimitProperties.Bucket(100, 1, 100),
+                new GarminRateLimitProperties.Bucket(1, 0.1, 1));
+        limiter.acquire("busy-user");
+
+        // When / Then
+        assertThatThrownBy(() -> limiter.acquire("busy-user"))
+                .isInstanceOf(GarminBridgeUnavailableException.class);
+        assertThatCode(() -> limiter.acquire("other-user")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void acquire_shouldRefundTokensWhenRefused() {
+        // Given: a global bucket of one call per second on a clock that only moves when told to
+        AtomicLong nanos = new AtomicLong();
+        GarminRateLimiter limiter = new GarminRateLimiter(
+                new AimdTokenBucket(new GarminRateLimitProperties.Bucket(1, 0.1, 2), 0.5, RECOVERY, nanos::get),
+                () -> new AimdTokenBucket(new GarminRateLimitProperties.Bucket(100, 1, 100), 0.5, RECOVERY, nanos::get),
+                Duration.ofMillis(100), Duration.ofMinutes(30));
+        limiter.acquire("user-1");
+        limiter.acquire("user-1");
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> limiter.acquire("user-1"))
+                    .isInstanceOf(GarminBridgeUnavailableException.class)
+                    .hasMessageContaining("next slot in 1000 ms");
+        }
+        nanos.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        // Then: without the refunds the bucket would owe five more tokens and refuse this call too
+        assertThatCode(() -> limiter.acquire("user-2")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void getGarminStatus_shouldDrawFromTheUsersBucket() {
+        // Given
+        GarminRateLimiter limiter = limiter(new GarminRateLimitProperties.Bucket(100, 1, 100),
+                new GarminRateLimitProperties.Bucket(1, 0.1, 1));
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(ExpectedCount.once(), requestTo("http://localhost:5001/garmin/status"))
+                .andRespond(withSuccess("{\"status\":\"logged_in\",\"username\":\"alice\"}", MediaType.APPLICATION_JSON));
+        GarminIntegrationService service = new GarminIntegrationService(restTemplate, new ObjectMapper(),
+                new PythonBridgeGuard(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(), limiter),
+                "http://localhost:5001");
+        service.getGarminStatus("session-1");
+
+        // When / Then
+        assertThatThrownBy(() -> service.getGarminStatus("session-1"))
+                .isInstanceOf(GarminBridgeUnavailableException.class)
+                .hasMessageContaining("Garmin rate limit");
+        server.verify();
+    }
+
+    private GarminRateLimiter limiter(GarminRateLimitProperties.Bucket global, GarminRateLimitProperties.Bucket perUser) {
+        return new GarminRateLimiter(new AimdTokenBucket(global, 0.5, RECOVERY),
+                () -> new AimdTokenBucket(perUser, 0.5, RECOVERY), Duration.ofMillis(100), Duration.ofMinutes(30));
+    }
+}
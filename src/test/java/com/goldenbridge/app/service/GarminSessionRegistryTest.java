@@ -0,0 +1,72 @@
+package com.goldenbridge.app.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GarminSessionRegistryTest {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(30);
+
+    private PostgresGarminSessions shared;
+    private GarminSessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        shared = mock(PostgresGarminSessions.class);
+        registry = new GarminSessionRegistry(IDLE_TIMEOUT, 100, shared);
+    }
+
+    @Test
+    void findSession_shouldAdoptSessionOpenedOnAnotherInstance() {
+        // Given
+        when(shared.find("alice", IDLE_TIMEOUT)).thenReturn(Optional.of("handle-from-node-a"));
+
+        // When
+        Optional<String> first = registry.findSession("alice");
+        Optional<String> second = registry.findSession("alice");
+
+        // Then
+        assertThat(first).contains("handle-from-node-a");
+        assertThat(second).contains("handle-from-node-a");
+        verify(shared, times(1)).find("alice", IDLE_TIMEOUT);
+    }
+
+    @Test
+    void activate_shouldShareHandleAndReturnOneReplacedElsewhere() {
+        // Given
+        when(shared.find("alice", IDLE_TIMEOUT)).thenReturn(Optional.of("old-handle"));
+
+        // When
+        Optional<String> replaced = registry.activate("alice", "new-handle");
+
+        // Then
+        assertThat(replaced).contains("old-handle");
+        verify(shared).save("alice", "new-handle");
+    }
+
+    @Test
+    void touchSessions_shouldFollowLoginsAndLogoutsMadeElsewhere() {
+        // Given
+        registry.activate("alice", "alice-1");
+        registry.activate("bob", "bob-1");
+        when(shared.touch(any())).thenReturn(Map.of("alice", "alice-2"));
+
+        // When
+        registry.touchSessions();
+
+        // Then
+        assertThat(registry.findSession("alice")).contains("alice-2");
+        assertThat(registry.findSession("bob")).isEmpty();
+    }
+}
@@ -0,0 +1,232 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.entity.SyncHistory;
+import com.goldenbridge.app.entity.User;
+import com.goldenbridge.app.entity.UserPreferences;
+import com.goldenbridge.app.exception.GarminBridgeUnavailableException;
+import com.goldenbridge.app.exception.SyncAlreadyRunningException;
+import com.goldenbridge.app.exception.SyncQueueFullException;
+import com.goldenbridge.app.repository.SyncHistoryRepository;
+import com.goldenbridge.app.repository.UserPreferencesRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GarminSyncOrchestratorTest {
+
+    private UserPreferencesRepository userPreferencesRepository;
+    private SyncHistoryRepository syncHistoryRepository;
+    private GarminSessionRegistry garminSessionRegistry;
+    private GarminSyncService garminSyncService;
+    private ThreadPoolTaskExecutor executor;
+    private GarminSyncOrchestrator orchestrator;
+
+    @BeforeEach
+    void setUp() {
+        userPreferencesRepository = mock(UserPreferencesRepository.class);
+        syncHistoryRepository = mock(SyncHistoryRepository.class);
+        garminSessionRegistry = new GarminSessionRegistry(Duration.ofMinutes(30), 100);
+        garminSyncService = mock(GarminSyncService.class);
+        when(garminSyncService.startSync(any(), any())).thenAnswer(invocation ->
+                new SyncHistory(invocation.getArgument(1), invocation.getArgument(0)));
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+        orchestrator = new GarminSyncOrchestrator(userPreferencesRepository, syncHistoryRepository, garminSessionRegistry,
+                garminSyncService, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void scheduleDueSyncs_shouldKeepSyncingOtherUsersWhileOneIsSlow() throws Exception {
+        // Given
+        User slow = loggedInUser(1L, "slow");
+        User fast1 = loggedInUser(2L, "fast1");
+        User fast2 = loggedInUser(3L, "fast2");
+        when(userPreferencesRepository.findActiveAutoSyncPreferences())
+                .thenReturn(List.of(preferences(slow), preferences(fast1), preferences(fast2)));
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        CountDownLatch fastDone = new CountDownLatch(2);
+        when(garminSyncService.runSync(any(), any(), anyString())).thenAnswer(invocation -> {
+            User user = invocation.getArgument(1);
+            if (user == slow) {
+                releaseSlow.await(5, TimeUnit.SECONDS);
+            } else {
+                fastDone.countDown();
+            }
+            return invocation.getArgument(0);
+        });
+
+        try {
+            // When
+            orchestrator.scheduleDueSyncs();
+
+            // Then
+            assertThat(fastDone.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(orchestrator.isRunning(slow.getId())).isTrue();
+        } finally {
+            releaseSlow.countDown();
+        }
+    }
+
+    @Test
+    void scheduleDueSyncs_shouldSkipUsersNotDueOrWithoutSession() {
+        // Given
+        User recent = loggedInUser(1L, "recent");
+        User notLoggedIn = new User("nobody", "nobody@example.com", "secret");
+        notLoggedIn.setId(2L);
+        when(userPreferencesRepository.findActiveAutoSyncPreferences())
+                .thenReturn(List.of(preferences(recent), preferences(notLoggedIn)));
+        when(syncHistoryRepository.findLatestSyncStartPerUser())
+                .thenReturn(List.<Object[]>of(new Object[]{1L, LocalDateTime.now().minusHours(1)}));
+
+        // When
+        orchestrator.scheduleDueSyncs();
+
+        // Then
+        verify(garminSyncService, never()).startSync(any(), any());
+    }
+
+    @Test
+    void triggerSync_shouldRejectSecondSyncForSameUser() throws Exception {
+        // Given
+        User user = loggedInUser(1L, "alice");
+        CountDownLatch release = new CountDownLatch(1);
+        when(garminSyncService.runSync(any(), eq(user), anyString())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+
+        // When
+        GarminSyncOrchestrator.SyncHandle first = orchestrator.triggerSync(user, SyncHistory.SyncType.MANUAL);
+
+        // Then
+        try {
+            assertThatThrownBy(() -> orchestrator.triggerSync(user, SyncHistory.SyncType.MANUAL))
+                    .isInstanceOf(SyncAlreadyRunningException.class);
+        } finally {
+            release.countDown();
+        }
+        assertThat(first.completion().get(5, TimeUnit.SECONDS).getSyncType()).isEqualTo(SyncHistory.SyncType.MANUAL);
+        assertThat(orchestrator.isRunning(user.getId())).isFalse();
+    }
+
+    @Test
+    void triggerSync_shouldReportFullQueueAsCapacityRejection() {
+        // Given
+        User user = loggedInUser(1L, "alice");
+        AsyncTaskExecutor fullExecutor = mock(AsyncTaskExecutor.class);
+        when(fullExecutor.submitCompletable(ArgumentMatchers.<Callable<SyncHistory>>any()))
+                .thenThrow(new TaskRejectedException("queue full"));
+        GarminSyncOrchestrator saturated = new GarminSyncOrchestrator(userPreferencesRepository, syncHistoryRepository,
+                garminSessionRegistry, garminSyncService, fullExecutor);
+
+        // When / Then
+        assertThatThrownBy(() -> saturated.triggerSync(user, SyncHistory.SyncType.MANUAL))
+                .isInstanceOf(SyncQueueFullException.class)
+                .isNotInstanceOf(GarminBridgeUnavailableException.class);
+        verify(garminSyncService).rejectSync(any(), anyString());
+        assertThat(saturated.isRunning(user.getId())).isFalse();
+    }
+
+    @Test
+    void resumeSync_shouldContinueTakenOverRunOnSameHistory() throws Exception {
+        // Given
+        User user = loggedInUser(1L, "alice");
+        SyncHistory history = new SyncHistory(SyncHistory.SyncType.SCHEDULED, user);
+        CountDownLatch resumed = new CountDownLatch(1);
+        when(garminSyncService.runSync(eq(history), eq(user), anyString())).thenAnswer(invocation -> {
+            resumed.countDown();
+            return history;
+        });
+
+        // When
+        boolean result = orchestrator.resumeSync(history);
+
+        // Then
+        assertThat(result).isTrue();
+        assertThat(resumed.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(garminSyncService, never()).startSync(any(), any());
+    }
+
+    @Test
+    void resumeSync_shouldResumeWithSessionOpenedOnAnotherInstance() throws Exception {
+        // Given
+        User user = new User("bob", "bob@example.com", "secret");
+        user.setId(3L);
+        PostgresGarminSessions shared = mock(PostgresGarminSessions.class);
+        when(shared.find(eq("bob"), any())).thenReturn(Optional.of("handle-from-crashed-node"));
+        GarminSyncOrchestrator survivor = new GarminSyncOrchestrator(userPreferencesRepository, syncHistoryRepository,
+                new GarminSessionRegistry(Duration.ofMinutes(30), 100, shared), garminSyncService, executor);
+        SyncHistory history = new SyncHistory(SyncHistory.SyncType.SCHEDULED, user);
+        CountDownLatch resumed = new CountDownLatch(1);
+        when(garminSyncService.runSync(history, user, "handle-from-crashed-node")).thenAnswer(invocation -> {
+            resumed.countDown();
+            return history;
+        });
+
+        // When
+        boolean result = survivor.resumeSync(history);
+
+        // Then
+        assertThat(result).isTrue();
+        assertThat(resumed.await(5, TimeUnit.SECONDS)).isTrue();
+        verify(garminSyncService, never()).rejectSync(any(), anyString());
+    }
+
+    @Test
+    void resumeSync_shouldFailRunWhenUserHasNoSession() {
+        // Given
+        User user = new User("nobody", "nobody@example.com", "secret");
+        user.setId(2L);
+        SyncHistory history = new SyncHistory(SyncHistory.SyncType.SCHEDULED, user);
+
+        // When
+        boolean result = orchestrator.resumeSync(history);
+
+        // Then
+        assertThat(result).isFalse();
+        verify(garminSyncService).rejectSync(eq(history), anyString());
+    }
+
+    private User loggedInUser(Long id, String username) {
+        User user = new User(username, username + "@example.com", "secret");
+        user.setId(id);
+        garminSessionRegistry.activate(username, garminSessionRegistry.newHandle());
+        return user;
+    }
+
+    private static UserPreferences preferences(User user) {
+        UserPreferences preferences = new UserPreferences(user);
+        preferences.setAutoSyncEnabled(true);
+        preferences.setSyncFrequencyHours(24);
+        return preferences;
+    }
+}
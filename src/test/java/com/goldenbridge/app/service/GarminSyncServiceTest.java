@@ -0,0 +1,333 @@
+package com.goldenbridge.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldenbridge.app.dto.GarminActivity;
+import com.goldenbridge.app.entity.Activity;
+import com.goldenbridge.app.entity.SyncHistory;
+import com.goldenbridge.app.entity.User;
+import com.goldenbridge.app.exception.GarminBridgeUnavailableException;
+import com.goldenbridge.app.repository.ActivityRepository;
+import com.goldenbridge.app.repository.SyncHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GarminSyncServiceTest {
+
+    private static final String SESSION = "session-1";
+    private static final int PAGE_SIZE = 2;
+
+    private GarminIntegrationService garminIntegrationService;
+    private ActivityRepository activityRepository;
+    private SyncHistoryRepository syncHistoryRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private SyncLeaseManager syncLeases;
+    private SyncCancellations syncCancellations;
+    private GarminSyncService garminSyncService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        garminIntegrationService = mock(GarminIntegrationService.class);
+        activityRepository = mock(ActivityRepository.class);
+        syncHistoryRepository = mock(SyncHistoryRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        syncLeases = new SyncLeaseManager(syncHistoryRepository, mock(PlatformTransactionManager.class), "node-1",
+                Duration.ofSeconds(30), Duration.ofSeconds(10));
+        syncCancellations = new SyncCancellations(syncHistoryRepository, syncLeases, mock(PlatformTransactionManager.class));
+        garminSyncService = new GarminSyncService(garminIntegrationService, activityRepository, syncHistoryRepository,
+                mock(PlatformTransactionManager.class), eventPublisher, syncLeases, syncCancellations, PAGE_SIZE);
+        user = new User("alice", "alice@example.com", "secret");
+        user.setId(7L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void runSync_shouldStoreNewActivitiesPageByPageAndSkipKnownOnes() {
+        // Given
+        givenPage(0, activity(3), activity(2));
+        givenPage(2, activity(1));
+        when(activityRepository.findGarminActivityIdsByUser(user)).thenReturn(List.of("2"));
+        when(activityRepository.findDataHashes(eq(user), eq(Set.of("2")), any(), any())).thenReturn(storedUnchanged("2"));
+        SyncHistory history = leasedHistory(SyncHistory.SyncType.MANUAL);
+
+        // When
+        SyncHistory result = garminSyncService.runSync(history, user, SESSION);
+
+        // Then
+        ArgumentCaptor<List<Activity>> saved = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Map<String, String>> rawPayloads = ArgumentCaptor.forClass(Map.class);
+        verify(activityRepository, times(2)).upsertAll(saved.capture(), rawPayloads.capture());
+        assertThat(saved.getAllValues().get(0)).extracting(Activity::getGarminActivityId).containsExactly("3");
+        assertThat(rawPayloads.getAllValues().get(0)).containsOnlyKeys("3");
+        assertThat(rawPayloads.getAllValues().get(0).get("3")).isEqualTo(activity(3).raw().toString());
+        assertThat(saved.getAllValues().get(1)).extracting(Activity::getGarminActivityId).containsExactly("1");
+        assertThat(result.getSyncStatus()).isEqualTo(SyncHistory.SyncStatus.COMPLETED);
+        assertThat(result.getActivitiesProcessed()).isEqualTo(3);
+        assertThat(result.getActivitiesSynced()).isEqualTo(2);
+        assertThat(result.getActivitiesSkipped()).isEqualTo(1);
+        assertThat(result.getSyncCompletedAt()).isNotNull();
+        verify(eventPublisher).publishEvent(new GarminSyncCompletedEvent(7L, "alice"));
+    }
+
+    @Test
+    void runSync_shouldPublishProgressForEachStage() {
+        // Given
+        givenPage(0, activity(3), activity(2));
+        givenPage(2, activity(1));
+        SyncHistory history = leasedHistory(SyncHistory.SyncType.MANUAL);
+
+        // When
+        garminSyncService.runSync(history, user, SESSION);
+
+        // Then
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, atLeastOnce()).publishEvent(events.capture());
+        List<GarminSyncProgressEvent> progress = events.getAllValues().stream()
+                .filter(GarminSyncProgressEvent.class::isInstance)
+                .map(GarminSyncProgressEvent.class::cast)
+                .toList();
+        assertThat(progress).extracting(GarminSyncProgressEvent::stage).containsExactly(
+                GarminSyncProgressEvent.Stage.FETCHING_PAGE, GarminSyncProgressEvent.Stage.SAVING_PAGE,
+                GarminSyncProgressEvent.Stage.FETCHING_PAGE, GarminSyncProgressEvent.Stage.SAVING_PAGE,
+                GarminSyncProgressEvent.Stage.COMPLETED);
+        assertThat(progress.get(2).activitiesProcessed()).isEqualTo(2);
+        assertThat(progress.get(4).activitiesProcessed()).isEqualTo(3);
+        assertThat(progress).allMatch(event -> event.username().equals("alice") && event.syncId() == 1L);
+    }
+
+    @Test
+    void runSync_shouldStopPagingAtFirstKnownActivityWhenIncremental() {
+        // Given
+        Activity newest = new Activity("4", "Ride 4", activity(4).startTimeLocal(), user);
+        when(activityRepository.findFirstByUserOrderByActivityDateDesc(user)).thenReturn(Optional.of(newest));
+        givenPage(0, activity(1), activity(2));
+        givenPage(2, activity(3), activity(4));
+        when(activityRepository.findGarminActivityIdsByUser(user)).thenReturn(List.of("4"));
+        when(activityRepository.findDataHashes(eq(user), eq(Set.of("4")), any(), any())).thenReturn(storedUnchanged("4"));
+        SyncHistory history = leasedHistory(SyncHistory.SyncType.SCHEDULED);
+
+        // When
+        SyncHistory result = garminSyncService.runSync(history, user, SESSION);
+
+        // Then
+        verify(garminIntegrationService, never()).streamGarminActivityPage(eq(SESSION), eq(4), anyInt(), any());
+        assertThat(result.getActivitiesSynced()).isEqualTo(3);
+        assertThat(result.getActivitiesSkipped()).isEqualTo(1);
+        assertThat(result.getSyncDetails()).contains("activity 4");
+    }
+
+    @Test
+    void runSync_shouldWalkWholeHistoryOnFullResync() {
+        // Given
+        Activity newest = new Activity("1", "Ride 1", activity(1).startTimeLocal(), user);
+        when(activityRepository.findFirstByUserOrderByActivityDateDesc(user)).thenReturn(Optional.of(newest));
+        givenPage(0, activity(1), activity(2));
+        givenPage(2, activity(3));
+        when(activityRepository.findGarminActivityIdsByUser(user)).thenReturn(List.of("1", "2"));
+        when(activityRepository.findDataHashes(eq(user), eq(Set.of("1", "2")), any(), any())).thenReturn(storedUnchanged("1", "2"));
+        SyncHistory history = leasedHistory(SyncHistory.SyncType.FULL_RESYNC);
+
+        // When
+        SyncHistory result = garminSyncService.runSync(history, user, SESSION);
+
+        // Then
+        verify(garminIntegrationService).streamGarminActivityPage(eq(SESSION), eq(2), eq(PAGE_SIZE), any());
+        assertThat(result.getActivitiesSynced()).isEqualTo(1);
+        assertThat(result.getActivitiesSkipped()).isEqualTo(2);
+    }
+
+    @Test
+    void runSync_shouldOnlyQueryDatabaseForIdsTheUserMayAlreadyHave() {
+        // Given
+        when(activityRepository.findGarminActivityIdsByUser(user)).thenReturn(List.of("10", "11"));
+        // A new upload shifted the list, so activity 1 is listed again on the second page
+        givenPage(0, activity(1), activity(2));
+        givenPage(2, activity(1));
+        when(activityRepository.findDataHashes(eq(user), eq(Set.of("1")), any(), any())).thenReturn(storedUnchanged("1"));
+        SyncHistory history = leasedHistory(SyncHistory.SyncType.MANUAL);
+
+        // When
+        SyncHistory result = garminSyncService.runSync(history, user, SESSION);
+
+        // Then
+        LocalDateTime listed = activity(1).startTimeLocal();
+        verify(activityRepository).findDataHashes(user, Set.of("1"), listed, listed);
+        verify(activityRepository, times(1)).findDataHashes(any(), any(), any(), any());
+        assertThat(result.getActivitiesSynced()).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void runSync_shouldRewriteOnlyActivitiesWhosePayloadChanged() {
+        // Given
+        when(activityRepository.findGarminActivityIdsByUser(user)).thenReturn(List.of("1", "2"));
+        givenPage(0, activity(1), activity(2));
+        givenPage(2);
+        List<Object[]> stored = new ArrayList<>(storedUnchanged("1"));
+        stored.add(new Object[]{"2", "hash-of-an-older-payload"});
+        when(activityRepository.findDataHashes(eq(user), eq(Set.of("1", "2")), any(), any())).thenReturn(stored);
+        SyncHistory history = leasedHistory(SyncHistory.SyncType.FULL_RESYNC);
+
+        // When
+        SyncHistory result = garminSyncService.runSync(history, user, SESSION);
+
+        // Then
+        ArgumentCaptor<List<Activity>> upserted = ArgumentCaptor.forClass(List.class);
+        verify(activityRepository).upsertAll(upserted.capture(), any());
+        assertThat(upserted.getValue()).singleElement().satisfies(rewritten -> {
+            assertThat(rewritten.getGarminActivityId()).isEqualTo("2");
+            assertThat(rewritten.getDataHash()).isEqualTo(ActivityDataHash.of(activity(2).raw()));
+            assertThat(rewritten.getSyncStatus()).isEqualTo(Activity.SyncStatus.PENDING);
+        });
+        assertThat(result.getActivitiesSynced()).isEqualTo(1);
+        assertThat(result.getActivitiesSkipped()).isEqualTo(1);
+    }
+
+    @Test
+    void runSync_shouldRecordBridgeFailureOnHistory() {
+        // Given
+        when(garminIntegrationService.streamGarminActivityPage(anyString(), anyInt(), anyInt(), any()))
+                .thenThrow(new GarminBridgeUnavailableException("Python bridge circuit is open; failing fast", null));
+        SyncHistory history = leasedHistory(SyncHistory.SyncType.SCHEDULED);
+
+        // When
+        SyncHistory result = garminSyncService.runSync(history, user, SESSION);
+
+        // Then
+        assertThat(result.getSyncStatus()).isEqualTo(SyncHistory.SyncStatus.FAILED);
+        assertThat(result.getErrorMessage()).contains("circuit is open");
+        verify(syncHistoryRepository).save(history);
+        verify(eventPublisher).publishEvent(new GarminSyncCompletedEvent(7L, "alice"));
+    }
+
+    @Test
+    void runSync_shouldAbandonRunWithoutWritingResultOnceLeaseIsLost() {
+        // Given
+        givenPage(0, activity(1), activity(2));
+        SyncHistory history = leasedHistory(SyncHistory.SyncType.MANUAL);
+        when(activityRepository.findGarminActivityIdsByUser(user)).thenAnswer(invocation -> {
+            // Heartbeat finds the run owned by another instance
+            syncLeases.heartbeat();
+            return List.of();
+        });
+
+        // When
+        garminSyncService.runSync(history, user, SESSION);
+
+        // Then
+        verify(garminIntegrationService, never()).streamGarminActivityPage(anyString(), anyInt(), anyInt(), any());
+        verify(syncHistoryRepository, never()).save(history);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void runSync_shouldStopAtNextPageAndKeepStoredWorkWhenCancelled() {
+        // Given
+        givenPage(0, activity(4), activity(3));
+        givenPage(2, activity(2), activity(1));
+        SyncHistory history = leasedHistory(SyncHistory.SyncType.FULL_RESYNC);
+        when(syncHistoryRepository.requestCancellation(eq(1L), any())).thenReturn(1);
+        doAnswer(invocation -> syncCancellations.request(1L)).when(activityRepository).upsertAll(any(), any());
+
+        // When
+        SyncHistory result = garminSyncService.runSync(history, user, SESSION);
+
+        // Then
+        verify(garminIntegrationService, times(1)).streamGarminActivityPage(anyString(), anyInt(), anyInt(), any());
+        assertThat(result.getSyncStatus()).isEqualTo(SyncHistory.SyncStatus.CANCELLED);
+        assertThat(result.getActivitiesSynced()).isEqualTo(2);
+        assertThat(result.getSyncCompletedAt()).isNotNull();
+        assertThat(syncCancellations.isRequested(1L)).isFalse();
+        assertThat(syncLeases.isHeld(1L)).isFalse();
+    }
+
+    @Test
+    void startSync_shouldStampAndHoldLeaseForThisInstance() {
+        // Given
+        when(syncHistoryRepository.save(any(SyncHistory.class))).thenAnswer(invocation -> {
+            SyncHistory saved = invocation.getArgument(0);
+            saved.setId(42L);
+            return saved;
+        });
+
+        // When
+        SyncHistory history = garminSyncService.startSync(user, SyncHistory.SyncType.MANUAL);
+
+        // Then
+        assertThat(history.getLeaseOwner()).isEqualTo("node-1");
+        assertThat(history.getLeaseExpiresAt()).isAfter(history.getHeartbeatAt());
+        assertThat(syncLeases.isHeld(42L)).isTrue();
+    }
+
+    @Test
+    void toActivity_shouldConvertUnits() {
+        // When
+        Activity activity = GarminSyncService.toActivity(activity(5), user, "hash");
+
+        // Then
+        assertThat(activity.getGarminActivityId()).isEqualTo("5");
+        assertThat(activity.getDurationSeconds()).isEqualTo(3600);
+        assertThat(activity.getDistanceMeters()).isEqualByComparingTo(new BigDecimal("36000.00"));
+        assertThat(activity.getAverageSpeedKmh()).isEqualByComparingTo(new BigDecimal("36.00"));
+        assertThat(activity.getSyncStatus()).isEqualTo(Activity.SyncStatus.PENDING);
+        assertThat(activity.getUser()).isSameAs(user);
+    }
+
+    private SyncHistory leasedHistory(SyncHistory.SyncType syncType) {
+        SyncHistory history = new SyncHistory(syncType, user);
+        history.setId(1L);
+        syncLeases.hold(1L);
+        return history;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenPage(int start, GarminActivity... activities) {
+        when(garminIntegrationService.streamGarminActivityPage(eq(SESSION), eq(start), eq(PAGE_SIZE), any())).thenAnswer(invocation -> {
+            Consumer<GarminActivity> consumer = invocation.getArgument(3);
+            for (GarminActivity activity : activities) {
+                consumer.accept(activity);
+            }
+            return activities.length;
+        });
+    }
+
+    /** Rows as stored for activities whose payload has not changed since they were saved. */
+    private static List<Object[]> storedUnchanged(String... garminActivityIds) {
+        return Arrays.stream(garminActivityIds)
+                .map(id -> new Object[]{id, ActivityDataHash.of(activity(Long.parseLong(id)).raw())})
+                .toList();
+    }
+
+    private static GarminActivity activity(long id) {
+        return new GarminActivity(id, "Ride " + id, "cycling", LocalDateTime.of(2025, 9, 1, 7, 0).minusDays(id),
+                3600.0, 36000.0, 900.0, 140.0, 170.0, 200.0, 600.0, 300.0, 10.0, 15.0,
+                new ObjectMapper().createObjectNode().put("activityId", id));
+    }
+}
@@ -0,0 +1,28 @@
+package com.goldenbridge.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KnownActivityIdsTest {
+
+    @Test
+    void contains_shouldAnswerForLoadedAndAddedIds() {
+        // Given
+        KnownActivityIds known = KnownActivityIds.of(List.of("20001", "10001", "manual-upload"));
+
+        // When
+        known.add("30001");
+
+        // Then
+        assertThat(known.contains("10001")).isTrue();
+        assertThat(known.contains("20001")).isTrue();
+        assertThat(known.contains("30001")).isTrue();
+        assertThat(known.contains("manual-upload")).isTrue();
+        assertThat(known.contains("10002")).isFalse();
+        assertThat(known.contains("other")).isFalse();
+        assertThat(known.size()).isEqualTo(4);
+    }
+}
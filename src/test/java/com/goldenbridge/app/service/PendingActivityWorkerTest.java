@@ -0,0 +1,194 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.dto.GarminActivityDetailResult;
+import com.goldenbridge.app.entity.Activity;
+import com.goldenbridge.app.entity.User;
+import com.goldenbridge.app.repository.ActivityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PendingActivityWorkerTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    private ActivityRepository activityRepository;
+    private GarminSessionRegistry garminSessionRegistry;
+    private GarminActivityDetailFetcher detailFetcher;
+    private SyncCancellations syncCancellations;
+    private PendingActivityWorker worker;
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        activityRepository = mock(ActivityRepository.class);
+        garminSessionRegistry = new GarminSessionRegistry(Duration.ofMinutes(30), 100);
+        detailFetcher = mock(GarminActivityDetailFetcher.class);
+        syncCancellations = mock(SyncCancellations.class);
+        ActivityRetryPolicy retryPolicy = new ActivityRetryPolicy(Duration.ofMinutes(1), Duration.ofHours(1), 3, () -> 1.0);
+        worker = new PendingActivityWorker(activityRepository, garminSessionRegistry, detailFetcher, retryPolicy,
+                syncCancellations, mock(PlatformTransactionManager.class), BATCH_SIZE, 10, Duration.ofMinutes(10));
+        alice = new User("alice", "alice@example.com", "secret");
+        alice.setId(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drainQueue_shouldMarkClaimedActivitiesInProgressAndRecordEachOutcome() {
+        // Given
+        String session = garminSessionRegistry.newHandle();
+        garminSessionRegistry.activate("alice", session);
+        Activity retried = activity(11L, "101", alice);
+        retried.setSyncAttempts(1);
+        when(activityRepository.lockPendingBatch(BATCH_SIZE)).thenReturn(List.of(activity(10L, "100", alice), retried));
+        when(detailFetcher.fetchDetails(eq(session), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<GarminActivityDetailResult> onResult = invocation.getArgument(3);
+            onResult.accept(GarminActivityDetailResult.success(100L, "{\"activityId\":100}"));
+            onResult.accept(GarminActivityDetailResult.failure(101L, "Bridge returned 500"));
+            return 2;
+        });
+
+        // When
+        worker.process(worker.claimBatch());
+
+        // Then
+        verify(activityRepository).updateSyncStatus(eq(List.of(10L, 11L)), eq(Activity.SyncStatus.IN_PROGRESS), any(LocalDateTime.class));
+        verify(activityRepository).completeSync(eq(10L), eq("{\"activityId\":100}"), any(LocalDateTime.class));
+        ArgumentCaptor<LocalDateTime> nextAttemptAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> failedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(activityRepository).failSync(eq(11L), eq("Bridge returned 500"), eq(2), nextAttemptAt.capture(), failedAt.capture());
+        assertThat(nextAttemptAt.getValue()).isEqualTo(failedAt.getValue().plusMinutes(2));
+    }
+
+    @Test
+    void drainQueue_shouldReleaseActivitiesOfUsersWithoutSession() {
+        // Given
+        when(activityRepository.lockPendingBatch(BATCH_SIZE)).thenReturn(List.of(activity(10L, "100", alice)));
+
+        // When
+        worker.drainQueue();
+
+        // Then
+        verify(activityRepository).updateSyncStatus(eq(List.of(10L)), eq(Activity.SyncStatus.PENDING), any(LocalDateTime.class));
+        verify(detailFetcher, never()).fetchDetails(anyString(), any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drainQueue_shouldKeepClaimingUntilBatchComesBackShort() {
+        // Given
+        garminSessionRegistry.activate("alice", garminSessionRegistry.newHandle());
+        when(activityRepository.lockPendingBatch(BATCH_SIZE))
+                .thenReturn(List.of(activity(10L, "100", alice), activity(11L, "101", alice)))
+                .thenReturn(List.of(activity(12L, "102", alice)));
+        when(detailFetcher.fetchDetails(anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(1);
+            Consumer<GarminActivityDetailResult> onResult = invocation.getArgument(3);
+            ids.forEach(id -> onResult.accept(GarminActivityDetailResult.success(id, "{}")));
+            return ids.size();
+        });
+
+        // When
+        worker.drainQueue();
+
+        // Then
+        verify(activityRepository, times(2)).lockPendingBatch(BATCH_SIZE);
+        verify(activityRepository, times(3)).completeSync(any(), eq("{}"), any(LocalDateTime.class));
+        verify(activityRepository).releaseStaleClaims(any(LocalDateTime.class));
+    }
+
+    @Test
+    void process_shouldStopRetryingOnceAttemptsAreExhausted() {
+        // Given
+        String session = garminSessionRegistry.newHandle();
+        garminSessionRegistry.activate("alice", session);
+        Activity activity = activity(10L, "100", alice);
+        activity.setSyncAttempts(2);
+        when(detailFetcher.fetchDetails(eq(session), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<GarminActivityDetailResult> onResult = invocation.getArgument(3);
+            onResult.accept(GarminActivityDetailResult.failure(100L, "Bridge returned 500"));
+            return 1;
+        });
+
+        // When
+        worker.process(List.of(PendingActivityWorker.ClaimedActivity.of(activity)));
+
+        // Then
+        verify(activityRepository).failSync(eq(10L), eq("Bridge returned 500"), eq(3), isNull(), any(LocalDateTime.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void process_shouldReleaseActivitiesNotFetchedBeforeSyncWasCancelled() {
+        // Given
+        String session = garminSessionRegistry.newHandle();
+        garminSessionRegistry.activate("alice", session);
+        AtomicInteger checks = new AtomicInteger();
+        when(syncCancellations.detailFetchStopChecks(Set.of("alice")))
+                .thenReturn(Map.of("alice", () -> checks.incrementAndGet() > 1));
+        when(detailFetcher.fetchDetails(eq(session), any(), any(), any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(1);
+            BooleanSupplier stopRequested = invocation.getArgument(2);
+            Consumer<GarminActivityDetailResult> onResult = invocation.getArgument(3);
+            int delivered = 0;
+            for (Long id : ids) {
+                if (stopRequested.getAsBoolean()) {
+                    break;
+                }
+                onResult.accept(GarminActivityDetailResult.success(id, "{}"));
+                delivered++;
+            }
+            return delivered;
+        });
+
+        // When
+        worker.process(List.of(PendingActivityWorker.ClaimedActivity.of(activity(10L, "100", alice)),
+                PendingActivityWorker.ClaimedActivity.of(activity(11L, "101", alice))));
+
+        // Then
+        verify(activityRepository).completeSync(eq(10L), eq("{}"), any(LocalDateTime.class));
+        verify(activityRepository).updateSyncStatus(eq(List.of(11L)), eq(Activity.SyncStatus.PENDING), any(LocalDateTime.class));
+        verify(activityRepository, never()).failSync(any(), any(), any(Integer.class), any(), any());
+    }
+
+    @Test
+    void process_shouldFailActivitiesWithNonNumericGarminIds() {
+        // Given
+        garminSessionRegistry.activate("alice", garminSessionRegistry.newHandle());
+
+        // When
+        worker.process(List.of(PendingActivityWorker.ClaimedActivity.of(activity(10L, "manual-upload", alice))));
+
+        // Then
+        verify(activityRepository).failSync(eq(10L), anyString(), eq(1), isNull(), any(LocalDateTime.class));
+        assertThat(PendingActivityWorker.ClaimedActivity.of(activity(11L, "101", alice)).numericGarminId()).isEqualTo(101L);
+    }
+
+    private static Activity activity(Long id, String garminActivityId, User user) {
+        Activity activity = new Activity(garminActivityId, "Ride " + garminActivityId, LocalDateTime.of(2025, 9, 1, 7, 0), user);
+        activity.setId(id);
+        return activity;
+    }
+}
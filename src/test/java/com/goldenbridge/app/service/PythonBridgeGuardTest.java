@@ -0,0 +1,121 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.config.GarminRateLimitProperties;
+import com.goldenbridge.app.exception.GarminBridgeUnavailableException;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PythonBridgeGuardTest {
+
+    private static final CircuitBreakerConfig BREAKER_CONFIG = CircuitBreakerConfig.custom()
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .failureRateThreshold(50)
+            .waitDurationInOpenState(Duration.ofMinutes(1))
+            .recordExceptions(ResourceAccessException.class)
+            .ignoreExceptions(HttpClientErrorException.class)
+            .build();
+
+    @Test
+    void call_shouldFailFastOnceCircuitOpens() {
+        // Given
+        PythonBridgeGuard guard = new PythonBridgeGuard(CircuitBreakerRegistry.of(BREAKER_CONFIG), BulkheadRegistry.ofDefaults());
+        AtomicInteger bridgeCalls = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> guard.call(() -> {
+                bridgeCalls.incrementAndGet();
+                throw new ResourceAccessException("Read timed out");
+            })).isInstanceOf(ResourceAccessException.class);
+        }
+
+        // When / Then
+        assertThat(guard.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> guard.call(() -> bridgeCalls.incrementAndGet()))
+                .isInstanceOf(GarminBridgeUnavailableException.class);
+        assertThat(bridgeCalls.get()).isEqualTo(4);
+    }
+
+    @Test
+    void call_shouldNotTripOnClientErrors() {
+        // Given
+        PythonBridgeGuard guard = new PythonBridgeGuard(CircuitBreakerRegistry.of(BREAKER_CONFIG), BulkheadRegistry.ofDefaults());
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> guard.call(() -> {
+                throw new HttpClientErrorException(HttpStatus.UNAUTHORIZED);
+            })).isInstanceOf(HttpClientErrorException.class);
+        }
+
+        // Then
+        assertThat(guard.circuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void call_shouldRejectWhenBulkheadIsFull() throws Exception {
+        // Given
+        BulkheadRegistry bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        PythonBridgeGuard guard = new PythonBridgeGuard(CircuitBreakerRegistry.of(BREAKER_CONFIG), bulkheads);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread hungCall = new Thread(() -> guard.call(() -> {
+            entered.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        hungCall.start();
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            // When / Then
+            assertThatThrownBy(() -> guard.call(() -> "second"))
+                    .isInstanceOf(GarminBridgeUnavailableException.class);
+        } finally {
+            release.countDown();
+            hungCall.join();
+        }
+        assertThat(guard.call(() -> "after")).isEqualTo("after");
+    }
+
+    @Test
+    void callWithSession_shouldSlowRateLimiterOnTooManyRequests() {
+        // Given
+        GarminRateLimitProperties.Bucket limits = new GarminRateLimitProperties.Bucket(4, 1, 4);
+        GarminRateLimiter rateLimiter = new GarminRateLimiter(new AimdTokenBucket(limits, 0.5, Duration.ofMinutes(2)),
+                () -> new AimdTokenBucket(limits, 0.5, Duration.ofMinutes(2)), Duration.ofSeconds(10), Duration.ofMinutes(30));
+        PythonBridgeGuard guard = new PythonBridgeGuard(CircuitBreakerRegistry.of(BREAKER_CONFIG), BulkheadRegistry.ofDefaults(), rateLimiter);
+
+        // When
+        assertThatThrownBy(() -> guard.call("session-1", () -> {
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", null, null, null);
+        })).isInstanceOf(HttpClientErrorException.TooManyRequests.class);
+
+        // Then
+        assertThat(rateLimiter.globalRate()).isLessThan(4);
+        assertThat(rateLimiter.userRate("session-1")).isLessThan(4);
+        assertThat(rateLimiter.userRate("session-2")).isEqualTo(4);
+        assertThat(guard.circuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+}
@@ -0,0 +1,36 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.repository.ActivityRawPayloadRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RawPayloadBackfillTest {
+
+    @Test
+    void moveNextBatch_shouldResumeAfterLastMovedIdAndStopWhenNothingIsLeft() {
+        // Given
+        ActivityRawPayloadRepository rawPayloads = mock(ActivityRawPayloadRepository.class);
+        when(rawPayloads.migrateInlinePayloads(0L, 2)).thenReturn(List.of(3L, 7L));
+        when(rawPayloads.migrateInlinePayloads(7L, 2)).thenReturn(List.of());
+        RawPayloadBackfill backfill = new RawPayloadBackfill(rawPayloads, mock(PlatformTransactionManager.class), 2);
+
+        // When
+        backfill.moveNextBatch();
+        backfill.moveNextBatch();
+        backfill.moveNextBatch();
+
+        // Then
+        assertThat(backfill.isFinished()).isTrue();
+        verify(rawPayloads, times(2)).migrateInlinePayloads(anyLong(), anyInt());
+    }
+}
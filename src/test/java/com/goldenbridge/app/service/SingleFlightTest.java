@@ -0,0 +1,90 @@
+package com.goldenbridge.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void execute_shouldShareOneCallBetweenConcurrentCallersWithSameKey() throws Exception {
+        // Given
+        int callers = 8;
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        try {
+            // When
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> singleFlight.execute("status", () -> {
+                upstreamCalls.incrementAndGet();
+                leaderStarted.countDown();
+                await(release);
+                return "logged_in";
+            })));
+            assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("status", () -> {
+                    upstreamCalls.incrementAndGet();
+                    return "duplicate";
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            // Then
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("logged_in");
+            }
+            assertThat(upstreamCalls.get()).isEqualTo(1);
+            assertThat(singleFlight.inFlightCount()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_shouldNotCacheResultAfterCompletion() {
+        // Given
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        // When
+        singleFlight.execute("status", () -> "first-" + upstreamCalls.incrementAndGet());
+        String second = singleFlight.execute("status", () -> "second-" + upstreamCalls.incrementAndGet());
+
+        // Then
+        assertThat(second).isEqualTo("second-2");
+    }
+
+    @Test
+    void execute_shouldPropagateFailureAndReleaseKey() {
+        // When / Then
+        assertThatThrownBy(() -> singleFlight.execute("status", () -> {
+            throw new IllegalStateException("bridge down");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("bridge down");
+        assertThat(singleFlight.inFlightCount()).isZero();
+        assertThat(singleFlight.execute("status", () -> "recovered")).isEqualTo("recovered");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
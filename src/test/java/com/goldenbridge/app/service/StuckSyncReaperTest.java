@@ -0,0 +1,84 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.entity.SyncHistory;
+import com.goldenbridge.app.entity.User;
+import com.goldenbridge.app.repository.SyncHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StuckSyncReaperTest {
+
+    private SyncHistoryRepository syncHistoryRepository;
+    private SyncLeaseManager syncLeases;
+    private GarminSyncOrchestrator garminSyncOrchestrator;
+    private StuckSyncReaper reaper;
+
+    @BeforeEach
+    void setUp() {
+        syncHistoryRepository = mock(SyncHistoryRepository.class);
+        syncLeases = new SyncLeaseManager(syncHistoryRepository, mock(PlatformTransactionManager.class), "node-2",
+                Duration.ofSeconds(30), Duration.ofSeconds(10));
+        garminSyncOrchestrator = mock(GarminSyncOrchestrator.class);
+        reaper = new StuckSyncReaper(syncHistoryRepository, syncLeases, garminSyncOrchestrator);
+    }
+
+    @Test
+    void reapExpiredLeases_shouldResumeOnlyRunsThisInstanceWins() {
+        // Given
+        SyncHistory won = run(1L, "alice");
+        SyncHistory lost = run(2L, "bob");
+        when(syncHistoryRepository.findRunsWithExpiredLease(any(LocalDateTime.class))).thenReturn(List.of(won, lost));
+        when(syncHistoryRepository.takeOverExpiredLease(eq(1L), eq("node-2"), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(1);
+        when(syncHistoryRepository.takeOverExpiredLease(eq(2L), eq("node-2"), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(0);
+
+        // When
+        reaper.reapExpiredLeases();
+
+        // Then
+        verify(garminSyncOrchestrator).resumeSync(won);
+        verify(garminSyncOrchestrator, never()).resumeSync(lost);
+        assertThat(syncLeases.isHeld(1L)).isTrue();
+        assertThat(syncLeases.isHeld(2L)).isFalse();
+    }
+
+    @Test
+    void heartbeat_shouldDropRunsNowOwnedByAnotherInstance() {
+        // Given
+        syncLeases.hold(1L);
+        syncLeases.hold(2L);
+        when(syncHistoryRepository.renewLease(eq(1L), eq("node-2"), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(1);
+        when(syncHistoryRepository.renewLease(eq(2L), eq("node-2"), any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(0);
+
+        // When
+        syncLeases.heartbeat();
+
+        // Then
+        assertThat(syncLeases.isHeld(1L)).isTrue();
+        assertThat(syncLeases.isHeld(2L)).isFalse();
+    }
+
+    private static SyncHistory run(Long id, String username) {
+        User user = new User(username, username + "@example.com", "secret");
+        user.setId(id);
+        SyncHistory history = new SyncHistory(SyncHistory.SyncType.SCHEDULED, user);
+        history.setId(id);
+        history.setSyncStatus(SyncHistory.SyncStatus.IN_PROGRESS);
+        history.setLeaseOwner("node-1");
+        return history;
+    }
+}
@@ -0,0 +1,90 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.repository.SyncHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SyncCancellationsTest {
+
+    private SyncHistoryRepository syncHistoryRepository;
+    private SyncLeaseManager syncLeases;
+    private SyncCancellations syncCancellations;
+
+    @BeforeEach
+    void setUp() {
+        syncHistoryRepository = mock(SyncHistoryRepository.class);
+        syncLeases = new SyncLeaseManager(syncHistoryRepository, mock(PlatformTransactionManager.class), "node-1",
+                Duration.ofSeconds(30), Duration.ofSeconds(10));
+        syncCancellations = new SyncCancellations(syncHistoryRepository, syncLeases, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void request_shouldSignalRunHeldHereAndRefuseFinishedRuns() {
+        // Given
+        syncLeases.hold(1L);
+        when(syncHistoryRepository.requestCancellation(eq(1L), any())).thenReturn(1);
+        when(syncHistoryRepository.requestCancellation(eq(2L), any())).thenReturn(0);
+
+        // When
+        boolean running = syncCancellations.request(1L);
+        boolean finished = syncCancellations.request(2L);
+
+        // Then
+        assertThat(running).isTrue();
+        assertThat(finished).isFalse();
+        assertThat(syncCancellations.isRequested(1L)).isTrue();
+        assertThat(syncCancellations.isRequested(2L)).isFalse();
+    }
+
+    @Test
+    void pollRequests_shouldPickUpCancellationsMadeOnOtherInstances() {
+        // Given
+        syncLeases.hold(1L);
+        syncLeases.hold(2L);
+        when(syncHistoryRepository.findCancellationRequested(Set.of(1L, 2L))).thenReturn(List.of(2L));
+
+        // When
+        syncCancellations.pollRequests();
+
+        // Then
+        assertThat(syncCancellations.isRequested(1L)).isFalse();
+        assertThat(syncCancellations.isRequested(2L)).isTrue();
+    }
+
+    @Test
+    void detailFetchStopChecks_shouldStopOnlyUsersWhoseUnfinishedRunIsCancelled() {
+        // Given: bob's run was cancelled on another instance, alice's is running here
+        syncLeases.hold(1L);
+        when(syncHistoryRepository.findUnfinishedRunsByUsernames(Set.of("alice", "bob", "carol"))).thenReturn(List.of(
+                new Object[]{"alice", 1L, null},
+                new Object[]{"bob", 2L, LocalDateTime.of(2026, 10, 17, 6, 0)}));
+
+        // When
+        Map<String, BooleanSupplier> checks = syncCancellations.detailFetchStopChecks(Set.of("alice", "bob", "carol"));
+
+        // Then
+        assertThat(checks).containsOnlyKeys("alice", "bob");
+        assertThat(checks.get("bob").getAsBoolean()).isTrue();
+        assertThat(checks.get("alice").getAsBoolean()).isFalse();
+        when(syncHistoryRepository.requestCancellation(eq(1L), any())).thenReturn(1);
+        syncCancellations.request(1L);
+        assertThat(checks.get("alice").getAsBoolean()).isTrue();
+        verify(syncHistoryRepository, times(1)).findUnfinishedRunsByUsernames(any());
+    }
+}
@@ -0,0 +1,89 @@
+package com.goldenbridge.app.service;
+
+import com.goldenbridge.app.entity.SyncHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyncProgressBroadcasterTest {
+
+    private final List<Runnable> queuedDeliveries = new ArrayList<>();
+    private SyncProgressBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new SyncProgressBroadcaster(queuedDeliveries::add, RecordingEmitter::new, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void subscribe_shouldReplayLatestProgress() {
+        // Given
+        broadcaster.onProgress(progress("alice", GarminSyncProgressEvent.Stage.SAVING_PAGE, 40));
+
+        // When
+        RecordingEmitter emitter = (RecordingEmitter) broadcaster.subscribe("alice");
+
+        // Then
+        assertThat(emitter.sent).hasSize(1);
+        assertThat(queuedDeliveries).isEmpty();
+    }
+
+    @Test
+    void onProgress_shouldCoalesceUpdatesAndDeliverOnlyToOwner() {
+        // Given
+        RecordingEmitter alice = (RecordingEmitter) broadcaster.subscribe("alice");
+        RecordingEmitter bob = (RecordingEmitter) broadcaster.subscribe("bob");
+
+        // When
+        broadcaster.onProgress(progress("alice", GarminSyncProgressEvent.Stage.FETCHING_PAGE, 0));
+        broadcaster.onProgress(progress("alice", GarminSyncProgressEvent.Stage.SAVING_PAGE, 100));
+        broadcaster.onProgress(progress("alice", GarminSyncProgressEvent.Stage.COMPLETED, 100));
+        queuedDeliveries.forEach(Runnable::run);
+
+        // Then
+        assertThat(queuedDeliveries).hasSize(1);
+        assertThat(alice.sent).hasSize(1);
+        assertThat(bob.sent).isEmpty();
+    }
+
+    @Test
+    void onProgress_shouldDropStreamsThatFailToAcceptWrites() {
+        // Given
+        RecordingEmitter emitter = (RecordingEmitter) broadcaster.subscribe("alice");
+        emitter.broken = true;
+
+        // When
+        broadcaster.onProgress(progress("alice", GarminSyncProgressEvent.Stage.FETCHING_PAGE, 0));
+        queuedDeliveries.forEach(Runnable::run);
+
+        // Then
+        assertThat(broadcaster.subscriberCount("alice")).isZero();
+    }
+
+    private static GarminSyncProgressEvent progress(String username, GarminSyncProgressEvent.Stage stage, int processed) {
+        return new GarminSyncProgressEvent(1L, username, SyncHistory.SyncType.MANUAL, stage, 0,
+                processed, processed, 0, 0, null, Instant.now());
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<SseEventBuilder> sent = new ArrayList<>();
+        private boolean broken;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            sent.add(builder);
+        }
+    }
+}